@@ -0,0 +1,873 @@
+package net.darkhax.curseforgegradle;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A transport that sends requests using the HTTP client of the JDK. Uploads are sent without holding a thread for each
+ * request, so many uploads can be in flight at the same time while only a few threads send the request bodies and
+ * handle the responses.
+ * <p>
+ * This is the Java 11 version of the class, which is packaged in {@code META-INF/versions/11} of the plugin jar. The
+ * client uses non-blocking sockets and runs its callbacks on the small thread pool of the transport. Mapped files are
+ * sent straight from the mapped regions.
+ * <p>
+ * A stalled upload is failed by the transport itself. While the body is still being sent, the body is ended with an
+ * error, which makes the client abort the exchange and close its connection on every Java version. Once the whole body
+ * has been sent, only cancelling the exchange can stop it, and the client ignores that before Java 16. On those
+ * versions the upload still fails after the timeout, but its connection stays open until the server answers or closes
+ * it.
+ */
+public final class JdkHttpTransport implements HttpTransport {
+
+    /**
+     * The size of the chunks the file is sent in.
+     */
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    /**
+     * The executor used by the HTTP client to send request bodies and handle responses.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The executor that fails uploads which have stalled for longer than the socket timeout.
+     */
+    private final ScheduledExecutorService watchdog;
+
+    /**
+     * The HTTP client used to send the requests.
+     */
+    private final HttpClient client;
+
+    /**
+     * The maximum number of uploads that are sent at the same time.
+     */
+    private final int maxInFlight;
+
+    /**
+     * The time to wait for the response to a GET request, and the time an upload may go without sending or receiving
+     * any data before it is considered stalled.
+     */
+    private final Duration socketTimeout;
+
+    /**
+     * The uploads waiting for another upload to finish. Access is guarded by this queue.
+     */
+    private final Deque<Runnable> waiting = new ArrayDeque<>();
+
+    /**
+     * The number of uploads that are being sent. Access is guarded by {@link #waiting}.
+     */
+    private int inFlight;
+
+    private JdkHttpTransport(int maxInFlight, int threads, int connectTimeout, int socketTimeout) {
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+
+            final Thread thread = new Thread(runnable, "CurseForgeGradle HTTP " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+            final Thread thread = new Thread(runnable, "CurseForgeGradle HTTP watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.client = HttpClient.newBuilder()
+                .executor(this.executor)
+                .connectTimeout(Duration.ofSeconds(Math.max(1, connectTimeout)))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.socketTimeout = Duration.ofSeconds(Math.max(1, socketTimeout));
+    }
+
+    /**
+     * Checks if the transport can be used on the current Java version.
+     *
+     * @return If the transport is available.
+     */
+    public static boolean isAvailable() {
+
+        return true;
+    }
+
+    /**
+     * Creates a new transport.
+     *
+     * @param maxInFlight    The maximum number of uploads that are sent at the same time. Further uploads wait for one
+     *                       of these to finish.
+     * @param threads        The number of threads used to send request bodies and handle responses.
+     * @param connectTimeout The time in seconds to wait for a connection to be established.
+     * @param socketTimeout  The time in seconds to wait for the response to a GET request, and the time an upload may
+     *                       go without sending or receiving data.
+     * @return The new transport.
+     */
+    public static HttpTransport create(int maxInFlight, int threads, int connectTimeout, int socketTimeout) {
+
+        return new JdkHttpTransport(maxInFlight, threads, connectTimeout, socketTimeout);
+    }
+
+    @Override
+    public TransportResponse get(String url, Map<String, String> headers) throws IOException {
+
+        final HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(this.socketTimeout)
+                .header("User-Agent", "CurseForgeGradle")
+                .header("Accept-Encoding", "gzip")
+                .GET();
+        headers.forEach(request::header);
+
+        try {
+
+            final HttpResponse<InputStream> response = this.client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            final boolean gzip = response.headers().firstValue("Content-Encoding").map("gzip"::equalsIgnoreCase).orElse(false);
+            return new TransportResponse(response.statusCode(), null, getHeaders(response), gzip ? new GZIPInputStream(response.body()) : response.body());
+        }
+
+        catch (HttpTimeoutException e) {
+
+            throw toSocketTimeout(e);
+        }
+
+        catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + url);
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> upload(UploadRequest request) {
+
+        final CompletableFuture<TransportResponse> result = new CompletableFuture<>();
+
+        this.whenSlotFree(() -> {
+
+            try {
+
+                this.send(request).whenComplete((response, error) -> {
+
+                    this.releaseSlot();
+
+                    if (error != null) {
+
+                        result.completeExceptionally(unwrap(error));
+                    }
+
+                    else {
+
+                        result.complete(response);
+                    }
+                });
+            }
+
+            catch (IOException | RuntimeException e) {
+
+                this.releaseSlot();
+                result.completeExceptionally(e);
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+
+        return true;
+    }
+
+    /**
+     * Sends a single upload request.
+     *
+     * @param upload The upload to send.
+     * @return A future that completes with the response.
+     * @throws IOException This exception will be raised if the size of the file could not be read.
+     */
+    private CompletableFuture<TransportResponse> send(UploadRequest upload) throws IOException {
+
+        final String boundary = "CurseForgeGradle" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        final byte[] head = ("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"metadata\"\r\n"
+                + "Content-Type: application/json; charset=UTF-8\r\n\r\n"
+                + upload.getMetadata() + "\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=" + quoteFileName(upload.getFileName()) + "\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+        final byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+
+        final List<ByteBuffer> regions = upload.getFile().getRegions();
+        final Path path = upload.getFile().getPath();
+        long fileLength = 0;
+
+        if (regions != null) {
+
+            for (ByteBuffer region : regions) {
+
+                fileLength += region.remaining();
+            }
+        }
+
+        else {
+
+            fileLength = Files.size(path);
+        }
+
+        final long contentLength = head.length + fileLength + tail.length;
+        final AtomicLong lastActivity = new AtomicLong(System.nanoTime());
+        final UploadProgress progress = new UploadProgress(upload.getFileName(), contentLength, upload.getProgressLog());
+        final BodyPublisher body = new BodyPublisher(head, regions, path, tail, lastActivity, progress);
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(upload.getUrl()))
+                .header("X-Api-Token", upload.getToken())
+                .header("User-Agent", "CurseForgeGradle")
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.fromPublisher(body, contentLength))
+                .build();
+
+        final CompletableFuture<TransportResponse> result = new CompletableFuture<>();
+        final CompletableFuture<HttpResponse<byte[]>> exchange = this.client.sendAsync(request, responseInfo -> {
+
+            lastActivity.set(System.nanoTime());
+            return HttpResponse.BodySubscribers.ofByteArray();
+        });
+
+        exchange.whenComplete((response, error) -> {
+
+            if (error != null) {
+
+                result.completeExceptionally(error);
+            }
+
+            else {
+
+                result.complete(new TransportResponse(
+                        response.statusCode(),
+                        null,
+                        getHeaders(response),
+                        new ByteArrayInputStream(response.body()),
+                        progress.getBytesSent(),
+                        progress.getElapsedNanos()
+                ));
+            }
+        });
+
+        this.watchForStall(exchange, body, result, lastActivity);
+        return result;
+    }
+
+    /**
+     * Fails an upload once it has not sent or received any data for longer than the socket timeout. The whole upload
+     * is not limited, as large files on slow connections can take much longer than the timeout to send. The check is
+     * scheduled for the moment the upload would stall, so idle uploads are not polled.
+     *
+     * @param exchange     The exchange of the HTTP client, which is cancelled when the upload stalls.
+     * @param body         The body of the upload, which is ended with the timeout if it is still being sent.
+     * @param result       The future that receives the timeout.
+     * @param lastActivity The time in nanoseconds that data was last sent or received.
+     */
+    private void watchForStall(CompletableFuture<?> exchange, BodyPublisher body, CompletableFuture<TransportResponse> result, AtomicLong lastActivity) {
+
+        if (result.isDone()) {
+
+            return;
+        }
+
+        final long timeout = this.socketTimeout.toNanos();
+        final long idle = System.nanoTime() - lastActivity.get();
+
+        if (idle >= timeout) {
+
+            // Timeouts are reported as socket timeouts, which are never retried for uploads as the API may already have
+            // received the file.
+            final HttpTimeoutException stalled = new HttpTimeoutException("Upload stalled for " + this.socketTimeout.getSeconds() + " seconds without sending or receiving data.");
+            result.completeExceptionally(stalled);
+            body.abort(stalled);
+            exchange.cancel(true);
+            return;
+        }
+
+        try {
+
+            this.watchdog.schedule(() -> this.watchForStall(exchange, body, result, lastActivity), timeout - idle, TimeUnit.NANOSECONDS);
+        }
+
+        catch (RejectedExecutionException e) {
+
+            // The transport has been closed, which also stops the exchange.
+        }
+    }
+
+    /**
+     * Runs an action once fewer than the maximum number of uploads are in flight. The action must call
+     * {@link #releaseSlot()} when its upload has finished.
+     *
+     * @param action The action that starts an upload.
+     */
+    private void whenSlotFree(Runnable action) {
+
+        synchronized (this.waiting) {
+
+            if (this.inFlight >= this.maxInFlight) {
+
+                this.waiting.add(action);
+                return;
+            }
+
+            this.inFlight++;
+        }
+
+        action.run();
+    }
+
+    /**
+     * Releases the slot of a finished upload. The slot is handed straight to the next waiting upload, if there is one.
+     */
+    private void releaseSlot() {
+
+        final Runnable next;
+
+        synchronized (this.waiting) {
+
+            next = this.waiting.poll();
+
+            if (next == null) {
+
+                this.inFlight--;
+                return;
+            }
+        }
+
+        this.executor.execute(next);
+    }
+
+    /**
+     * Gets the exception that caused a request to fail.
+     *
+     * @param error The error the request completed with.
+     * @return The cause of the failure.
+     */
+    private static Throwable unwrap(Throwable error) {
+
+        final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+        if (cause instanceof HttpConnectTimeoutException) {
+
+            // Nothing has been sent yet, so this is safe to retry even for uploads.
+            final ConnectException converted = new ConnectException(cause.getMessage());
+            converted.initCause(cause);
+            return converted;
+        }
+
+        return cause instanceof HttpTimeoutException ? toSocketTimeout((HttpTimeoutException) cause) : cause;
+    }
+
+    /**
+     * Converts a timeout of the JDK client to a socket timeout, which the retry policy already knows to be temporary.
+     *
+     * @param timeout The timeout raised by the client.
+     * @return The socket timeout.
+     */
+    private static SocketTimeoutException toSocketTimeout(HttpTimeoutException timeout) {
+
+        final SocketTimeoutException converted = new SocketTimeoutException(timeout.getMessage());
+        converted.initCause(timeout);
+        return converted;
+    }
+
+    /**
+     * Quotes a file name for the filename parameter of a Content-Disposition header. Quotes and backslashes are escaped
+     * with a backslash, as the Apache client does. Line breaks can not be escaped in a header, so they are replaced with
+     * spaces.
+     *
+     * @param fileName The file name.
+     * @return The quoted file name.
+     */
+    private static String quoteFileName(String fileName) {
+
+        final StringBuilder quoted = new StringBuilder(fileName.length() + 2).append('"');
+
+        for (int i = 0; i < fileName.length(); i++) {
+
+            final char character = fileName.charAt(i);
+
+            if (character == '"' || character == '\\') {
+
+                quoted.append('\\').append(character);
+            }
+
+            else if (character == '\r' || character == '\n') {
+
+                quoted.append(' ');
+            }
+
+            else {
+
+                quoted.append(character);
+            }
+        }
+
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Gets the first value of each header of a response.
+     *
+     * @param response The response.
+     * @return The response headers.
+     */
+    private static Map<String, String> getHeaders(HttpResponse<?> response) {
+
+        final Map<String, String> headers = new HashMap<>();
+        response.headers().map().forEach((name, values) -> {
+
+            if (!values.isEmpty()) {
+
+                headers.put(name, values.get(0));
+            }
+        });
+
+        return headers;
+    }
+
+    @Override
+    public void close() {
+
+        synchronized (this.waiting) {
+
+            this.waiting.clear();
+        }
+
+        this.watchdog.shutdownNow();
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Publishes the body of a multipart upload. The head and tail of the body are sent from memory, mapped files are sent
+     * as slices of their mapped regions and other files are read in chunks as they are requested. A new subscription is
+     * created each time the client sends the body.
+     */
+    private static final class BodyPublisher implements Flow.Publisher<ByteBuffer> {
+
+        private final byte[] head;
+
+        @Nullable
+        private final List<ByteBuffer> regions;
+
+        private final Path path;
+
+        private final byte[] tail;
+
+        /**
+         * The time in nanoseconds that the client last asked for more of the body.
+         */
+        private final AtomicLong lastActivity;
+
+        /**
+         * The progress of the body that is being sent.
+         */
+        private final UploadProgress progress;
+
+        /**
+         * The subscription of the client that is sending the body, or null if the client has not subscribed yet.
+         */
+        @Nullable
+        private volatile BodySubscription subscription;
+
+        private BodyPublisher(byte[] head, @Nullable List<ByteBuffer> regions, Path path, byte[] tail, AtomicLong lastActivity, UploadProgress progress) {
+
+            this.head = head;
+            this.regions = regions;
+            this.path = path;
+            this.tail = tail;
+            this.lastActivity = lastActivity;
+            this.progress = progress;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+
+            final BodySubscription subscription = new BodySubscription(subscriber, new BodyParts(this.head, this.regions, this.path, this.tail), this.lastActivity, this.progress);
+            this.subscription = subscription;
+            this.progress.start();
+            subscriber.onSubscribe(subscription);
+        }
+
+        /**
+         * Ends the body with an error if it is still being sent.
+         *
+         * @param error The error that ends the body.
+         */
+        private void abort(Throwable error) {
+
+            final BodySubscription subscription = this.subscription;
+
+            if (subscription != null) {
+
+                subscription.abort(error);
+            }
+        }
+    }
+
+    /**
+     * Sends the parts of a body to the client as they are requested.
+     */
+    private static final class BodySubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+
+        private final BodyParts parts;
+
+        /**
+         * The time in nanoseconds that the client last asked for more of the body.
+         */
+        private final AtomicLong lastActivity;
+
+        /**
+         * The progress of the body, which counts every part that is handed to the client.
+         */
+        private final UploadProgress progress;
+
+        /**
+         * The number of parts requested but not yet sent. Only the thread that raised this from zero sends parts.
+         */
+        private final AtomicLong demand = new AtomicLong();
+
+        /**
+         * The error that the body should be ended with, or null if the body has not been aborted.
+         */
+        @Nullable
+        private volatile Throwable abortError;
+
+        private volatile boolean done;
+
+        private BodySubscription(Flow.Subscriber<? super ByteBuffer> subscriber, BodyParts parts, AtomicLong lastActivity, UploadProgress progress) {
+
+            this.subscriber = subscriber;
+            this.parts = parts;
+            this.lastActivity = lastActivity;
+            this.progress = progress;
+        }
+
+        @Override
+        public void request(long count) {
+
+            if (this.done) {
+
+                return;
+            }
+
+            // The client only asks for more once the previous parts have been written to the connection.
+            this.lastActivity.set(System.nanoTime());
+
+            if (count <= 0) {
+
+                this.finish(new IllegalArgumentException("Requested " + count + " parts."));
+                return;
+            }
+
+            // Another thread is already sending parts and will pick up the new demand.
+            if (this.demand.getAndAccumulate(count, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added) != 0) {
+
+                return;
+            }
+
+            long pending = this.demand.get();
+
+            while (pending > 0 && !this.done) {
+
+                long sent = 0;
+
+                while (sent < pending && !this.done) {
+
+                    if (this.abortError != null) {
+
+                        this.finish(this.abortError);
+                        return;
+                    }
+
+                    try {
+
+                        if (!this.parts.hasNext()) {
+
+                            this.finish(null);
+                            return;
+                        }
+
+                        final ByteBuffer part = this.parts.next();
+                        this.progress.onSent(part.remaining());
+                        this.subscriber.onNext(part);
+                        sent++;
+                    }
+
+                    catch (UncheckedIOException e) {
+
+                        this.finish(e.getCause());
+                        return;
+                    }
+                }
+
+                pending = this.demand.addAndGet(-sent);
+            }
+        }
+
+        @Override
+        public void cancel() {
+
+            this.done = true;
+            this.parts.close();
+        }
+
+        /**
+         * Ends the body with an error. Parts are only sent by the thread that raised the demand from zero, so the error
+         * is signalled here when no thread is sending, and otherwise by the sending thread before its next part.
+         *
+         * @param error The error that ends the body.
+         */
+        private void abort(Throwable error) {
+
+            this.abortError = error;
+
+            if (this.demand.getAndIncrement() == 0) {
+
+                this.finish(error);
+            }
+        }
+
+        /**
+         * Completes the subscription.
+         *
+         * @param error The error that stopped the body, or null if the whole body was sent.
+         */
+        private void finish(@Nullable Throwable error) {
+
+            if (this.done) {
+
+                return;
+            }
+
+            this.done = true;
+            this.parts.close();
+
+            if (error != null) {
+
+                this.subscriber.onError(error);
+            }
+
+            else {
+
+                this.progress.finish();
+                this.subscriber.onComplete();
+            }
+        }
+    }
+
+    /**
+     * Iterates over the buffers that make up a multipart body.
+     */
+    private static final class BodyParts implements Iterator<ByteBuffer>, Closeable {
+
+        /**
+         * The buffers that are sent before and after the file. The file is sent between the first and second buffer.
+         */
+        private final Deque<ByteBuffer> frame = new ArrayDeque<>();
+
+        /**
+         * The remaining mapped regions of the file, or null if the file is read from disk.
+         */
+        @Nullable
+        private final Iterator<ByteBuffer> regions;
+
+        /**
+         * The path of the file, used when the file is not mapped.
+         */
+        private final Path path;
+
+        /**
+         * The region being sent, or null if the next region has not been started.
+         */
+        @Nullable
+        private ByteBuffer region;
+
+        /**
+         * The open file, or null if the file is not being read from disk.
+         */
+        @Nullable
+        private FileChannel channel;
+
+        /**
+         * Whether the head of the body has been sent.
+         */
+        private boolean headSent;
+
+        /**
+         * Whether the whole file has been sent.
+         */
+        private boolean fileSent;
+
+        private BodyParts(byte[] head, @Nullable List<ByteBuffer> regions, Path path, byte[] tail) {
+
+            this.frame.add(ByteBuffer.wrap(head));
+            this.frame.add(ByteBuffer.wrap(tail));
+            this.regions = regions != null ? regions.iterator() : null;
+            this.path = path;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            return !this.headSent || !this.fileSent || !this.frame.isEmpty();
+        }
+
+        @Override
+        public ByteBuffer next() {
+
+            if (!this.headSent) {
+
+                this.headSent = true;
+                return this.frame.poll();
+            }
+
+            if (!this.fileSent) {
+
+                final ByteBuffer chunk = this.regions != null ? this.nextRegionChunk() : this.nextFileChunk();
+
+                if (chunk != null) {
+
+                    return chunk;
+                }
+
+                this.fileSent = true;
+            }
+
+            if (this.frame.isEmpty()) {
+
+                throw new NoSuchElementException();
+            }
+
+            return this.frame.poll();
+        }
+
+        /**
+         * Gets the next chunk of the mapped file. The chunk shares the memory of the mapped region.
+         *
+         * @return The next chunk, or null if the whole file has been sent.
+         */
+        @Nullable
+        private ByteBuffer nextRegionChunk() {
+
+            while (this.region == null || !this.region.hasRemaining()) {
+
+                if (!this.regions.hasNext()) {
+
+                    return null;
+                }
+
+                this.region = this.regions.next().duplicate();
+            }
+
+            final ByteBuffer chunk = this.region.slice();
+            chunk.limit(Math.min(CHUNK_SIZE, chunk.remaining()));
+            this.region.position(this.region.position() + chunk.remaining());
+            return chunk;
+        }
+
+        /**
+         * Reads the next chunk of the file from disk.
+         *
+         * @return The next chunk, or null if the whole file has been sent.
+         * @throws UncheckedIOException This exception will be raised if the file could not be read.
+         */
+        @Nullable
+        private ByteBuffer nextFileChunk() {
+
+            try {
+
+                if (this.channel == null) {
+
+                    this.channel = FileChannel.open(this.path, StandardOpenOption.READ);
+                }
+
+                final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+
+                while (chunk.hasRemaining()) {
+
+                    if (this.channel.read(chunk) < 0) {
+
+                        break;
+                    }
+                }
+
+                chunk.flip();
+                return chunk.hasRemaining() ? chunk : null;
+            }
+
+            catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+
+            if (this.channel != null) {
+
+                try {
+
+                    this.channel.close();
+                }
+
+                catch (IOException e) {
+
+                    // The file was only read, nothing is lost.
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package net.darkhax.curseforgegradle;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A transport that answers requests from memory without using the network. This allows benchmarks to measure the
+ * plugin without the cost of the network hiding it. It is only part of the benchmarks and is never shipped with the
+ * plugin, so builds can not publish fake file IDs to their ledger, version cache or result manifest.
+ * <p>
+ * GET requests are answered with the responses registered for their path, such as {@code /api/game/versions}. Paths
+ * without a registered response are answered with a 404 error. Every upload is accepted and answered with a new file
+ * ID, and is recorded so the uploads can be inspected afterwards.
+ */
+public final class InMemoryHttpTransport implements HttpTransport {
+
+    /**
+     * The headers sent with every response.
+     */
+    private static final Map<String, String> JSON_HEADERS = ImmutableMap.of("Content-Type", "application/json");
+
+    /**
+     * The response bodies of GET requests, keyed by the path of the request.
+     */
+    private final Map<String, byte[]> responses = new ConcurrentHashMap<>();
+
+    /**
+     * The uploads received so far, in the order they were received.
+     */
+    private final List<RecordedUpload> uploads = new ArrayList<>();
+
+    /**
+     * The ID of the last accepted upload.
+     */
+    private final AtomicLong lastFileId = new AtomicLong(1000);
+
+    /**
+     * Registers the response to GET requests for a path.
+     *
+     * @param path The path of the request, for example {@code /api/game/versions}.
+     * @param body The JSON body of the response.
+     * @return The same transport, to allow chaining.
+     */
+    public InMemoryHttpTransport respond(String path, byte[] body) {
+
+        this.responses.put(path, body.clone());
+        return this;
+    }
+
+    /**
+     * Registers the response to GET requests for a path.
+     *
+     * @param path The path of the request, for example {@code /api/game/versions}.
+     * @param body The JSON body of the response.
+     * @return The same transport, to allow chaining.
+     */
+    public InMemoryHttpTransport respond(String path, String body) {
+
+        return this.respond(path, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public TransportResponse get(String url, Map<String, String> headers) {
+
+        final byte[] body = this.responses.get(URI.create(url).getPath());
+
+        if (body == null) {
+
+            final String error = "{\"errorCode\":404,\"errorMessage\":\"No in-memory response for " + URI.create(url).getPath() + "\"}";
+            return new TransportResponse(404, "Not Found", JSON_HEADERS, new ByteArrayInputStream(error.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        return new TransportResponse(200, "OK", JSON_HEADERS, new ByteArrayInputStream(body));
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> upload(UploadRequest request) {
+
+        final long startTime = System.nanoTime();
+        final CompletableFuture<TransportResponse> result = new CompletableFuture<>();
+
+        try {
+
+            final long size = getSize(request.getFile());
+            final long fileId = this.lastFileId.incrementAndGet();
+
+            synchronized (this.uploads) {
+
+                this.uploads.add(new RecordedUpload(request.getUrl(), request.getMetadata(), request.getFileName(), size, fileId));
+            }
+
+            final byte[] body = ("{\"id\":" + fileId + "}").getBytes(StandardCharsets.UTF_8);
+            result.complete(new TransportResponse(200, "OK", JSON_HEADERS, new ByteArrayInputStream(body), size, System.nanoTime() - startTime));
+        }
+
+        catch (IOException e) {
+
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+
+        return true;
+    }
+
+    /**
+     * Gets the uploads received so far.
+     *
+     * @return An immutable list of the uploads, in the order they were received.
+     */
+    public List<RecordedUpload> getUploads() {
+
+        synchronized (this.uploads) {
+
+            return ImmutableList.copyOf(this.uploads);
+        }
+    }
+
+    /**
+     * Gets the size of an uploaded file. The file is not read, as nothing would be done with the contents.
+     *
+     * @param file The uploaded file.
+     * @return The size of the file in bytes.
+     * @throws IOException This exception will be raised if the size of the file could not be read.
+     */
+    private static long getSize(UploadFileStore.StoredFile file) throws IOException {
+
+        final List<ByteBuffer> regions = file.getRegions();
+
+        if (regions == null) {
+
+            return Files.size(file.getPath());
+        }
+
+        long size = 0;
+
+        for (ByteBuffer region : regions) {
+
+            size += region.remaining();
+        }
+
+        return size;
+    }
+
+    @Override
+    public void close() {
+
+    }
+
+    /**
+     * An upload received by the transport.
+     */
+    public static final class RecordedUpload {
+
+        private final String url;
+
+        private final String metadata;
+
+        private final String fileName;
+
+        private final long size;
+
+        private final long fileId;
+
+        private RecordedUpload(String url, String metadata, String fileName, long size, long fileId) {
+
+            this.url = url;
+            this.metadata = metadata;
+            this.fileName = fileName;
+            this.size = size;
+            this.fileId = fileId;
+        }
+
+        public String getUrl() {
+            return this.url;
+        }
+
+        public String getMetadata() {
+            return this.metadata;
+        }
+
+        public String getFileName() {
+            return this.fileName;
+        }
+
+        public long getSize() {
+            return this.size;
+        }
+
+        public long getFileId() {
+            return this.fileId;
+        }
+    }
+}
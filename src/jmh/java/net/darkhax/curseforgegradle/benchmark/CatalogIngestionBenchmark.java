@@ -0,0 +1,96 @@
+package net.darkhax.curseforgegradle.benchmark;
+
+import net.darkhax.curseforgegradle.Constants;
+import net.darkhax.curseforgegradle.api.versions.Version;
+import net.darkhax.curseforgegradle.api.versions.VersionCatalogReader;
+import net.darkhax.curseforgegradle.api.versions.VersionType;
+import net.darkhax.curseforgegradle.versionTypes.EnvironmentVersionTypeProvider;
+import net.darkhax.curseforgegradle.versionTypes.JavaVersionTypeProvider;
+import net.darkhax.curseforgegradle.versionTypes.ModMinecraftVersionTypeProvider;
+import net.darkhax.curseforgegradle.versionTypes.ModloaderVersionTypeProvider;
+import net.darkhax.curseforgegradle.versionTypes.VersionTypeProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming catalog ingestion with the previous approach of deserializing the full version list before
+ * filtering it. Run with the GC profiler to compare the allocation rate of both paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CatalogIngestionBenchmark {
+
+    private byte[] versionsPayload;
+
+    private Set<Long> validTypes;
+
+    @Setup
+    public void setup() throws IOException {
+
+        this.versionsPayload = Fixtures.load("catalog/game-versions.json");
+        this.validTypes = new HashSet<>();
+
+        try (Reader reader = Fixtures.reader(Fixtures.load("catalog/game-version-types.json"))) {
+
+            final VersionType[] types = VersionCatalogReader.readVersionTypes(reader);
+            final VersionTypeProvider[] providers = {new ModMinecraftVersionTypeProvider(), new EnvironmentVersionTypeProvider(), new JavaVersionTypeProvider(), new ModloaderVersionTypeProvider()};
+
+            for (VersionTypeProvider provider : providers) {
+
+                this.validTypes.addAll(provider.getValidVersionTypes(types));
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, Version> streaming() throws IOException {
+
+        final Map<String, Version> versionsByName = new HashMap<>();
+
+        try (Reader reader = Fixtures.reader(this.versionsPayload)) {
+
+            VersionCatalogReader.readVersions(reader, this.validTypes, version -> versionsByName.put(version.getName(), version));
+        }
+
+        return versionsByName;
+    }
+
+    @Benchmark
+    public Map<String, Version> fullDeserialization() throws IOException {
+
+        final Map<String, Version> versionsByName = new HashMap<>();
+
+        try (Reader reader = Fixtures.reader(this.versionsPayload)) {
+
+            for (Version version : Constants.GSON.fromJson(reader, Version[].class)) {
+
+                if (this.validTypes.contains(version.getGameVersionTypeID())) {
+
+                    versionsByName.put(version.getName(), version);
+                }
+            }
+        }
+
+        return versionsByName;
+    }
+}
@@ -0,0 +1,108 @@
+package net.darkhax.curseforgegradle.benchmark;
+
+import com.google.common.io.ByteStreams;
+import net.darkhax.curseforgegradle.Constants;
+import net.darkhax.curseforgegradle.api.metadata.Metadata;
+import net.darkhax.curseforgegradle.api.metadata.ProjectRelations;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads the fixtures used by the benchmarks. The payloads are held as bytes so each benchmark invocation pays for
+ * decoding and parsing the same way a network response would.
+ * <p>
+ * None of the fixtures were recorded from CurseForge. The catalog under {@code catalog/} is synthetic. It was
+ * generated in the shape of {@code /api/game/versions} and {@code /api/game/version-types}, with 6096 versions of
+ * which 696 are kept by the default version type providers. The changelog under {@code changelog/} was written by hand
+ * to look like a typical mod changelog. Results measured with them show the cost of payloads of that size and shape,
+ * not of the live catalog.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+
+    }
+
+    /**
+     * Reads a fixture from the benchmark resources.
+     *
+     * @param path The path of the fixture relative to the resource root.
+     * @return The raw bytes of the fixture.
+     */
+    static byte[] load(String path) {
+
+        try (InputStream stream = Fixtures.class.getResourceAsStream("/" + path)) {
+
+            if (stream == null) {
+
+                throw new IllegalStateException("Missing benchmark fixture " + path);
+            }
+
+            return ByteStreams.toByteArray(stream);
+        }
+
+        catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates a new reader over a loaded fixture.
+     *
+     * @param payload The fixture bytes.
+     * @return A reader for the fixture.
+     */
+    static Reader reader(byte[] payload) {
+
+        return new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates the upload metadata of a typical parent file, with the hand-written changelog, the game versions of a mod
+     * for one loader and a few project relations.
+     *
+     * @return The metadata of the parent file.
+     */
+    static Metadata parentMetadata() {
+
+        final Metadata metadata = new Metadata();
+        metadata.changelog = new String(load("changelog/changelog.md"), StandardCharsets.UTF_8);
+        metadata.changelogType = Constants.CHANGELOG_MARKDOWN;
+        metadata.displayName = "Bookshelf-Forge-1.20.1-12.4.2.jar";
+        metadata.releaseType = Constants.RELEASE_TYPE_RELEASE;
+        metadata.gameVersions.add(9990L);
+        metadata.gameVersions.add(7498L);
+        metadata.gameVersions.add(472L);
+        metadata.gameVersions.add(474L);
+        metadata.gameVersions.add(8326L);
+
+        metadata.relations = new ProjectRelations();
+        metadata.relations.addRelationship("jei", "optionalDependency");
+        metadata.relations.addRelationship("the-one-probe", "optionalDependency");
+        metadata.relations.addRelationship("curios", "optionalDependency");
+        metadata.relations.addRelationship("jade", "optionalDependency");
+        metadata.relations.addRelationship("bookshelf-addons", "embeddedLibrary");
+        return metadata;
+    }
+
+    /**
+     * Creates the upload metadata of a typical additional file, which only has a short changelog and its parent.
+     *
+     * @return The metadata of the additional file.
+     */
+    static Metadata additionalMetadata() {
+
+        final Metadata metadata = new Metadata();
+        metadata.changelog = "Sources for Bookshelf 12.4.2.";
+        metadata.releaseType = Constants.RELEASE_TYPE_RELEASE;
+        metadata.parentFileID = 4712345L;
+        return metadata;
+    }
+}
@@ -0,0 +1,98 @@
+package net.darkhax.curseforgegradle.benchmark;
+
+import com.google.common.collect.ImmutableSet;
+import net.darkhax.curseforgegradle.InMemoryHttpTransport;
+import net.darkhax.curseforgegradle.RetryPolicy;
+import net.darkhax.curseforgegradle.api.versions.GameVersions;
+import net.darkhax.curseforgegradle.api.versions.Version;
+import net.darkhax.curseforgegradle.versionTypes.EnvironmentVersionTypeProvider;
+import net.darkhax.curseforgegradle.versionTypes.JavaVersionTypeProvider;
+import net.darkhax.curseforgegradle.versionTypes.ModMinecraftVersionTypeProvider;
+import net.darkhax.curseforgegradle.versionTypes.ModloaderVersionTypeProvider;
+import net.darkhax.curseforgegradle.versionTypes.VersionTypeProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the plugin takes to ingest the synthetic game version catalog and to resolve the versions of an
+ * artifact against it. The catalog is served by the in-memory transport, so the refresh includes decoding, filtering
+ * and indexing the responses but not the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GameVersionsBenchmark {
+
+    /**
+     * The versions of a typical artifact. Names and slugs are mixed, as build scripts use both.
+     */
+    private static final Set<String> ARTIFACT_VERSIONS = ImmutableSet.of("1.20.1", "Forge", "client", "server", "Java 17");
+
+    private InMemoryHttpTransport transport;
+
+    private ExecutorService executor;
+
+    private GameVersions gameVersions;
+
+    @Setup
+    public void setup() {
+
+        this.transport = new InMemoryHttpTransport()
+                .respond("/api/game/versions", Fixtures.load("catalog/game-versions.json"))
+                .respond("/api/game/version-types", Fixtures.load("catalog/game-version-types.json"));
+
+        this.executor = Executors.newSingleThreadExecutor();
+        final Set<VersionTypeProvider> providers = ImmutableSet.of(new ModMinecraftVersionTypeProvider(), new EnvironmentVersionTypeProvider(), new JavaVersionTypeProvider(), new ModloaderVersionTypeProvider());
+        this.gameVersions = new GameVersions("http://localhost", ":publishCurseForge", providers, null, this.transport, new RetryPolicy(), this.executor);
+        this.gameVersions.refresh("token");
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        this.transport.close();
+        this.executor.shutdown();
+    }
+
+    @Benchmark
+    public GameVersions refresh() {
+
+        this.gameVersions.refresh("token");
+        return this.gameVersions;
+    }
+
+    @Benchmark
+    public Version getVersionByName() {
+
+        return this.gameVersions.getVersion("1.20.1");
+    }
+
+    @Benchmark
+    public Version getVersionBySlug() {
+
+        return this.gameVersions.getVersion("1-20-1");
+    }
+
+    @Benchmark
+    public Set<Long> resolveVersions() {
+
+        return this.gameVersions.resolveVersions(ARTIFACT_VERSIONS);
+    }
+}
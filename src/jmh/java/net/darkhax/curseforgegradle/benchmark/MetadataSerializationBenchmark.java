@@ -0,0 +1,51 @@
+package net.darkhax.curseforgegradle.benchmark;
+
+import net.darkhax.curseforgegradle.Constants;
+import net.darkhax.curseforgegradle.api.metadata.Metadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization of the upload metadata that is sent with every file. The parent metadata carries a full
+ * changelog, game versions and project relations, while the additional file metadata only carries a short changelog
+ * and the ID of its parent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MetadataSerializationBenchmark {
+
+    /**
+     * The kind of file the metadata describes.
+     */
+    @Param({"parent", "additional"})
+    public String kind;
+
+    private Metadata metadata;
+
+    @Setup
+    public void setup() {
+
+        this.metadata = "parent".equals(this.kind) ? Fixtures.parentMetadata() : Fixtures.additionalMetadata();
+    }
+
+    @Benchmark
+    public String serialize() {
+
+        return Constants.GSON.toJson(this.metadata);
+    }
+}
@@ -0,0 +1,107 @@
+package net.darkhax.curseforgegradle.benchmark;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import net.darkhax.curseforgegradle.Constants;
+import net.darkhax.curseforgegradle.UploadFileStore;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the multipart upload request for an artifact of a typical size, the same way the Apache transport
+ * builds it. The build benchmark only assembles the entity, while the write benchmark also sends it to a sink that
+ * discards the bytes. {@link UploadBodyBenchmark} covers the cost of sending large files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MultipartEntityBenchmark {
+
+    /**
+     * The size of the uploaded file in kilobytes.
+     */
+    @Param({"256", "4096"})
+    public int fileSizeKb;
+
+    /**
+     * Whether the file is sent from mapped memory.
+     */
+    @Param({"true", "false"})
+    public boolean mapFiles;
+
+    private File file;
+
+    private UploadFileStore.StoredFile storedFile;
+
+    private String metadata;
+
+    @Setup
+    public void setup() throws IOException {
+
+        this.file = File.createTempFile("curseforgegradle-upload", ".jar");
+
+        // Random bytes so the file behaves like a compressed jar.
+        final byte[] block = new byte[1024];
+        final Random random = new Random(42);
+
+        try (OutputStream output = Files.newOutputStream(this.file.toPath())) {
+
+            for (int i = 0; i < this.fileSizeKb; i++) {
+
+                random.nextBytes(block);
+                output.write(block);
+            }
+        }
+
+        this.storedFile = new UploadFileStore(this.mapFiles).get(this.file);
+        this.storedFile.load();
+
+        this.metadata = Constants.GSON.toJson(Fixtures.parentMetadata());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+
+        Files.deleteIfExists(this.file.toPath());
+    }
+
+    @Benchmark
+    public HttpEntity build() {
+
+        final MultipartEntityBuilder requestEntity = MultipartEntityBuilder.create();
+        requestEntity.addTextBody("metadata", this.metadata, ContentType.APPLICATION_JSON);
+        requestEntity.addPart("file", this.storedFile.createBody(this.file.getName()));
+        return requestEntity.build();
+    }
+
+    @Benchmark
+    public long buildAndWrite() throws IOException {
+
+        final CountingOutputStream sink = new CountingOutputStream(ByteStreams.nullOutputStream());
+        this.build().writeTo(sink);
+        return sink.getCount();
+    }
+}
@@ -0,0 +1,102 @@
+package net.darkhax.curseforgegradle.benchmark;
+
+import groovy.lang.Closure;
+import net.darkhax.curseforgegradle.TaskPublishCurseForge;
+import org.gradle.api.file.RegularFile;
+import org.gradle.api.internal.provider.Providers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TaskPublishCurseForge#parseString(Object)} for each kind of value build scripts use for changelogs.
+ * Every value resolves to the same hand-written changelog, so the results only differ by the cost of unwrapping the
+ * value. The file inputs read the changelog from disk on each call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ParseStringBenchmark {
+
+    /**
+     * The kind of value passed to the parser.
+     */
+    @Param({"string", "closure", "provider", "file", "regularFile", "fileProvider"})
+    public String input;
+
+    private File file;
+
+    private Object value;
+
+    @Setup
+    public void setup() throws IOException {
+
+        final byte[] changelog = Fixtures.load("changelog/changelog.md");
+        final String text = new String(changelog, StandardCharsets.UTF_8);
+
+        this.file = File.createTempFile("curseforgegradle-changelog", ".md");
+        Files.write(this.file.toPath(), changelog);
+        final RegularFile regularFile = () -> this.file;
+
+        switch (this.input) {
+
+            case "string":
+                this.value = text;
+                break;
+            case "closure":
+                this.value = new Closure<String>(null) {
+
+                    @SuppressWarnings("unused")
+                    public String doCall() {
+
+                        return text;
+                    }
+                };
+                break;
+            case "provider":
+                this.value = Providers.of(text);
+                break;
+            case "file":
+                this.value = this.file;
+                break;
+            case "regularFile":
+                this.value = regularFile;
+                break;
+            case "fileProvider":
+                this.value = Providers.of(regularFile);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown input " + this.input);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+
+        Files.deleteIfExists(this.file.toPath());
+    }
+
+    @Benchmark
+    public String parseString() {
+
+        return TaskPublishCurseForge.parseString(this.value);
+    }
+}
@@ -0,0 +1,92 @@
+package net.darkhax.curseforgegradle.benchmark;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import net.darkhax.curseforgegradle.MappedFileBody;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.FileBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sending an artifact through the mapped upload body with the {@link FileBody} created by
+ * {@code MultipartEntityBuilder.addBinaryBody(File)}. Each operation sends the whole file to a sink that discards the
+ * bytes, so the results only contain the cost of reading the file and copying it to the connection stream. Divide the
+ * time and the normalized allocation reported by the GC profiler by the file size to compare the cost per GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UploadBodyBenchmark {
+
+    /**
+     * The size of the uploaded file in megabytes.
+     */
+    @Param({"64", "256"})
+    public int fileSizeMb;
+
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+
+        this.file = File.createTempFile("curseforgegradle-upload", ".jar");
+
+        // Random bytes so the file behaves like a compressed jar. The page cache is warmed by the first iterations.
+        final byte[] block = new byte[1024 * 1024];
+        new Random(42).nextBytes(block);
+
+        try (OutputStream output = Files.newOutputStream(this.file.toPath())) {
+
+            for (int i = 0; i < this.fileSizeMb; i++) {
+
+                output.write(block);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+
+        Files.deleteIfExists(this.file.toPath());
+    }
+
+    @Benchmark
+    public long fileBody() throws IOException {
+
+        return send(new FileBody(this.file));
+    }
+
+    @Benchmark
+    public long mappedFileBody() throws IOException {
+
+        return send(new MappedFileBody(this.file));
+    }
+
+    private static long send(ContentBody body) throws IOException {
+
+        final CountingOutputStream sink = new CountingOutputStream(ByteStreams.nullOutputStream());
+        body.writeTo(sink);
+        return sink.getCount();
+    }
+}
@@ -0,0 +1,113 @@
+package net.darkhax.curseforgegradle;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A transport that sends requests using a pooled Apache HTTP client. Uploads are sent on the calling thread, so each
+ * upload holds a thread until its response has been received. Request bodies are streamed to the connection, and the
+ * progress of an upload is reported while the file is sent.
+ */
+public final class ApacheHttpTransport implements HttpTransport {
+
+    /**
+     * The HTTP client used to send requests. The client is owned by the {@link CurseForgeBuildService}.
+     */
+    private final HttpClient client;
+
+    /**
+     * @param client The HTTP client used to send requests. The client is not closed by the transport.
+     */
+    public ApacheHttpTransport(HttpClient client) {
+
+        this.client = client;
+    }
+
+    @Override
+    public TransportResponse get(String url, Map<String, String> headers) throws IOException {
+
+        final HttpGet request = new HttpGet(url);
+        headers.forEach(request::addHeader);
+
+        final HttpResponse response = this.client.execute(request);
+        final HttpEntity entity = response.getEntity();
+        return new TransportResponse(response.getStatusLine().getStatusCode(), response.getStatusLine().getReasonPhrase(), getHeaders(response), entity != null ? entity.getContent() : null);
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> upload(UploadRequest request) {
+
+        final MultipartEntityBuilder requestEntity = MultipartEntityBuilder.create();
+        requestEntity.addTextBody("metadata", request.getMetadata(), ContentType.APPLICATION_JSON);
+        requestEntity.addPart("file", request.getFile().createBody(request.getFileName()));
+        final ProgressHttpEntity progressEntity = new ProgressHttpEntity(requestEntity.build(), request.getFileName(), request.getProgressLog());
+
+        final HttpPost post = new HttpPost(request.getUrl());
+        post.addHeader("X-Api-Token", request.getToken());
+        post.setEntity(progressEntity);
+
+        final CompletableFuture<TransportResponse> result = new CompletableFuture<>();
+        HttpResponse response = null;
+
+        try {
+
+            response = this.client.execute(post);
+
+            // The body is a file ID or an error, so it is read straight away and the connection is released.
+            final byte[] body = response.getEntity() != null ? EntityUtils.toByteArray(response.getEntity()) : new byte[0];
+            result.complete(new TransportResponse(response.getStatusLine().getStatusCode(), response.getStatusLine().getReasonPhrase(), getHeaders(response), new ByteArrayInputStream(body), progressEntity.getBytesSent(), progressEntity.getElapsedNanos()));
+        }
+
+        catch (IOException e) {
+
+            result.completeExceptionally(e);
+        }
+
+        finally {
+
+            if (response != null) {
+
+                EntityUtils.consumeQuietly(response.getEntity());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the first value of each header of a response.
+     *
+     * @param response The response.
+     * @return The response headers.
+     */
+    private static Map<String, String> getHeaders(HttpResponse response) {
+
+        final Map<String, String> headers = new HashMap<>();
+
+        for (Header header : response.getAllHeaders()) {
+
+            headers.putIfAbsent(header.getName(), header.getValue());
+        }
+
+        return headers;
+    }
+
+    @Override
+    public void close() {
+
+        // The client is owned and closed by the build service.
+    }
+}
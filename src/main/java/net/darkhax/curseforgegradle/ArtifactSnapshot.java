@@ -0,0 +1,138 @@
+package net.darkhax.curseforgegradle;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import net.darkhax.curseforgegradle.api.metadata.Metadata;
+import net.darkhax.curseforgegradle.api.metadata.ProjectRelations;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The resolved values of an artifact. This is created once when the artifact is prepared for upload, after which the
+ * changelog, release type and other script values are never resolved again. Every request made for the artifact, and
+ * the log output describing it, is created from the same snapshot.
+ */
+public final class ArtifactSnapshot {
+
+    /**
+     * The resolved changelog, or null if no changelog was defined.
+     */
+    @Nullable
+    private final String changelog;
+
+    /**
+     * The resolved changelog type.
+     */
+    @Nullable
+    private final String changelogType;
+
+    /**
+     * The resolved display name, or null if no display name was defined.
+     */
+    @Nullable
+    private final String displayName;
+
+    /**
+     * The resolved release type.
+     */
+    @Nullable
+    private final String releaseType;
+
+    /**
+     * The IDs of the game versions, or null for additional files which take their versions from the parent file.
+     */
+    @Nullable
+    private final Set<Long> gameVersions;
+
+    /**
+     * The relations to other projects, keyed by project slug. The values are the relation types.
+     */
+    private final Map<String, String> relations;
+
+    /**
+     * The relations in the format sent to the API, or null if there are no relations. Curse does not accept an empty
+     * array here.
+     */
+    @Nullable
+    private final ProjectRelations uploadRelations;
+
+    /**
+     * @param changelog     The resolved changelog.
+     * @param changelogType The resolved changelog type.
+     * @param displayName   The resolved display name.
+     * @param releaseType   The resolved release type.
+     * @param gameVersions  The IDs of the game versions, or null for additional files.
+     * @param relations     The relations to other projects, keyed by project slug.
+     */
+    ArtifactSnapshot(@Nullable String changelog, @Nullable String changelogType, @Nullable String displayName, @Nullable String releaseType, @Nullable Set<Long> gameVersions, Map<String, String> relations) {
+
+        this.changelog = changelog;
+        this.changelogType = changelogType;
+        this.displayName = displayName;
+        this.releaseType = releaseType;
+        this.gameVersions = gameVersions != null ? ImmutableSet.copyOf(gameVersions) : null;
+        this.relations = ImmutableMap.copyOf(relations);
+
+        if (this.relations.isEmpty()) {
+
+            this.uploadRelations = null;
+        }
+
+        else {
+
+            this.uploadRelations = new ProjectRelations();
+            this.relations.forEach(this.uploadRelations::addRelationship);
+        }
+    }
+
+    /**
+     * Creates the upload metadata for the artifact. The metadata shares the values of this snapshot and must not be
+     * modified.
+     *
+     * @param parentFileId The ID of the published parent file, or null if the artifact is a parent file.
+     * @return The CurseForge upload metadata.
+     */
+    public Metadata toMetadata(@Nullable Long parentFileId) {
+
+        final Metadata metadata = new Metadata();
+        metadata.changelog = this.changelog;
+        metadata.changelogType = this.changelogType;
+        metadata.displayName = this.displayName;
+        metadata.releaseType = this.releaseType;
+        metadata.relations = this.uploadRelations;
+        metadata.gameVersions = this.gameVersions;
+        metadata.parentFileID = parentFileId;
+        return metadata;
+    }
+
+    @Nullable
+    public String getChangelog() {
+        return this.changelog;
+    }
+
+    @Nullable
+    public String getChangelogType() {
+        return this.changelogType;
+    }
+
+    @Nullable
+    public String getDisplayName() {
+        return this.displayName;
+    }
+
+    @Nullable
+    public String getReleaseType() {
+        return this.releaseType;
+    }
+
+    @Nullable
+    public Set<Long> getGameVersions() {
+        return this.gameVersions;
+    }
+
+    public Map<String, String> getRelations() {
+        return this.relations;
+    }
+}
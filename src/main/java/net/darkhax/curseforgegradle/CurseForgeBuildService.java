@@ -0,0 +1,322 @@
+package net.darkhax.curseforgegradle;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import net.darkhax.curseforgegradle.api.versions.GameVersions;
+import net.darkhax.curseforgegradle.versionTypes.VersionTypeProvider;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A build scoped service that holds state shared by every publish task in the build. This allows tasks from different
+ * projects to reuse data such as the game version catalog instead of requesting it from the API again. All methods of
+ * this service can be used by several tasks at the same time.
+ */
+public abstract class CurseForgeBuildService implements BuildService<CurseForgeBuildService.Parameters>, AutoCloseable {
+
+    /**
+     * The resolved game version catalogs. Each catalog is keyed by the API endpoint and the version type providers used
+     * to filter it. The value is a future so that tasks requesting a catalog that is still being fetched will wait for
+     * that fetch instead of starting another one.
+     */
+    private final Map<List<Object>, CompletableFuture<GameVersions>> gameVersions = new ConcurrentHashMap<>();
+
+    /**
+     * The pooled HTTP clients used by publish tasks. Each client is keyed by its settings, so tasks configured the same
+     * way will share connections.
+     */
+    private final Map<String, CloseableHttpClient> httpClients = new ConcurrentHashMap<>();
+
+    /**
+     * The HTTP transports used by publish tasks. Each transport is keyed by its type and settings, like the pooled HTTP
+     * clients.
+     */
+    private final Map<String, HttpTransport> transports = new ConcurrentHashMap<>();
+
+    /**
+     * An executor for work that is started ahead of the tasks that need it. The threads are daemon threads so they will
+     * never keep the build alive.
+     */
+    private final ExecutorService backgroundExecutor = Executors.newCachedThreadPool(runnable -> {
+
+        final Thread thread = new Thread(runnable, "CurseForgeGradle background");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * An executor that starts the retries of non-blocking uploads once their delay has passed. The retries themselves do
+     * not block, so a single thread is enough for every upload in the build.
+     */
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+        final Thread thread = new Thread(runnable, "CurseForgeGradle retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Registers the service with the build if it has not already been registered.
+     *
+     * @param gradle The Gradle instance of the build.
+     * @return A provider for the shared service.
+     */
+    public static Provider<CurseForgeBuildService> register(Gradle gradle) {
+
+        // The service is keyed by the class loader that loaded the plugin. Projects that load the plugin through
+        // different class loaders can not share instances of these classes.
+        final String serviceName = "curseForgeGradle_" + Integer.toHexString(System.identityHashCode(CurseForgeBuildService.class.getClassLoader()));
+        return gradle.getSharedServices().registerIfAbsent(serviceName, CurseForgeBuildService.class, spec -> spec.getParameters().getGradleUserHome().set(gradle.getGradleUserHomeDir()));
+    }
+
+    /**
+     * Gets a pooled HTTP client. Connections are kept alive and reused between requests, so each connection only pays
+     * for the TLS handshake once. The client is shared by every task that uses the same settings and is closed when the
+     * build finishes.
+     *
+     * @param poolSize       The maximum number of open connections.
+     * @param connectTimeout The time in seconds to wait for a connection to be established.
+     * @param socketTimeout  The time in seconds to wait for data before a request is considered stalled.
+     * @return The pooled HTTP client.
+     */
+    public HttpClient getHttpClient(int poolSize, int connectTimeout, int socketTimeout) {
+
+        return this.httpClients.computeIfAbsent(poolSize + "/" + connectTimeout + "/" + socketTimeout, key -> {
+
+            final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(Math.max(1, poolSize));
+            connectionManager.setDefaultMaxPerRoute(Math.max(1, poolSize));
+
+            final RequestConfig requestConfig = RequestConfig.custom()
+                    .setCookieSpec(CookieSpecs.STANDARD)
+                    .setConnectTimeout((int) TimeUnit.SECONDS.toMillis(connectTimeout))
+                    .setConnectionRequestTimeout((int) TimeUnit.SECONDS.toMillis(connectTimeout))
+                    .setSocketTimeout((int) TimeUnit.SECONDS.toMillis(socketTimeout))
+                    .build();
+
+            return HttpClientBuilder.create()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(requestConfig)
+                    .setUserAgent("CurseForgeGradle")
+                    .evictIdleConnections(30, TimeUnit.SECONDS)
+                    .build();
+        });
+    }
+
+    /**
+     * Gets an HTTP transport. The transport is shared by every task that uses the same type and settings, so the limits
+     * on connections and uploads in flight apply to all of them together. The transport is closed when the build
+     * finishes.
+     *
+     * @param type           The type of transport.
+     * @param poolSize       The maximum number of open connections, and for non-blocking transports the maximum number
+     *                       of uploads in flight.
+     * @param threads        The number of threads used by non-blocking transports to send requests.
+     * @param connectTimeout The time in seconds to wait for a connection to be established.
+     * @param socketTimeout  The time in seconds to wait for data before a request is considered stalled.
+     * @return The HTTP transport.
+     * @throws GradleException This exception will be raised if the transport is not available on the current Java
+     *                         version or could not be created.
+     */
+    public HttpTransport getTransport(HttpTransportType type, int poolSize, int threads, int connectTimeout, int socketTimeout) {
+
+        switch (type) {
+
+            case JDK:
+                return this.transports.computeIfAbsent("jdk/" + poolSize + "/" + threads + "/" + connectTimeout + "/" + socketTimeout, key -> JdkHttpTransport.create(poolSize, threads, connectTimeout, socketTimeout));
+
+            default:
+                return this.transports.computeIfAbsent("apache/" + poolSize + "/" + connectTimeout + "/" + socketTimeout, key -> new ApacheHttpTransport(this.getHttpClient(poolSize, connectTimeout, socketTimeout)));
+        }
+    }
+
+    /**
+     * Gets the executor that starts the retries of non-blocking uploads.
+     *
+     * @return The retry scheduler.
+     */
+    public ScheduledExecutorService getRetryScheduler() {
+
+        return this.retryScheduler;
+    }
+
+    /**
+     * Gets the game version catalog for an API endpoint. The catalog will be loaded the first time it is requested, and
+     * every following request with the same endpoint and version type providers will reuse it. If the catalog is
+     * already being loaded, for example by {@link #prefetchGameVersions}, this waits for that to finish. The returned
+     * catalog must not be modified.
+     *
+     * @param endpoint             The base URL for the API.
+     * @param versionTypeProviders The providers used to determine which version types are valid.
+     * @param loader               Creates and refreshes the catalog if it has not been requested yet.
+     * @return The game version catalog for the endpoint.
+     */
+    public GameVersions getGameVersions(String endpoint, Set<VersionTypeProvider> versionTypeProviders, Supplier<GameVersions> loader) {
+
+        try {
+
+            return this.requestGameVersions(endpoint, versionTypeProviders, loader, Runnable::run).join();
+        }
+
+        catch (CompletionException e) {
+
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new GradleException("Failed to fetch game versions!", e.getCause());
+        }
+    }
+
+    /**
+     * Starts loading the game version catalog for an API endpoint in the background. This allows the network requests
+     * to overlap with other work in the build, such as compiling the files that will be published. Nothing happens if
+     * the catalog has already been requested. Failures are not reported here, they will be raised when a task calls
+     * {@link #getGameVersions}.
+     *
+     * @param endpoint             The base URL for the API.
+     * @param versionTypeProviders The providers used to determine which version types are valid.
+     * @param loader               Creates and refreshes the catalog if it has not been requested yet.
+     */
+    public void prefetchGameVersions(String endpoint, Set<VersionTypeProvider> versionTypeProviders, Supplier<GameVersions> loader) {
+
+        this.requestGameVersions(endpoint, versionTypeProviders, loader, this.backgroundExecutor);
+    }
+
+    /**
+     * Gets or starts the request for a game version catalog.
+     *
+     * @param endpoint             The base URL for the API.
+     * @param versionTypeProviders The providers used to determine which version types are valid.
+     * @param loader               Creates and refreshes the catalog if it has not been requested yet.
+     * @param executor             The executor used to load the catalog if it has not already been requested.
+     * @return A future that completes with the game version catalog.
+     */
+    private CompletableFuture<GameVersions> requestGameVersions(String endpoint, Set<VersionTypeProvider> versionTypeProviders, Supplier<GameVersions> loader, Executor executor) {
+
+        final List<Object> key = catalogKey(endpoint, versionTypeProviders);
+        final CompletableFuture<GameVersions> pending = new CompletableFuture<>();
+        final CompletableFuture<GameVersions> existing = this.gameVersions.putIfAbsent(key, pending);
+
+        // Another task has already requested this catalog.
+        if (existing != null) {
+
+            return existing;
+        }
+
+        executor.execute(() -> {
+
+            try {
+
+                pending.complete(loader.get());
+            }
+
+            catch (RuntimeException e) {
+
+                // Failed fetches are not kept so a later task can try again.
+                this.gameVersions.remove(key, pending);
+                pending.completeExceptionally(e);
+            }
+        });
+
+        return pending;
+    }
+
+    /**
+     * Gets the executor for work that is started ahead of the tasks that need it, such as loading game versions.
+     *
+     * @return The executor for background work.
+     */
+    public Executor getBackgroundExecutor() {
+
+        return this.backgroundExecutor;
+    }
+
+    /**
+     * Gets the Gradle user home directory. The game version cache and the upload ledger are stored in this directory.
+     *
+     * @return The Gradle user home directory.
+     */
+    public File getGradleUserHome() {
+
+        return this.getParameters().getGradleUserHome().get().getAsFile();
+    }
+
+    @Override
+    public void close() {
+
+        // When the configuration cache is stored, Gradle closes the instance used while configuring, which may still be
+        // prefetching game versions. Nothing will read the result anymore, so the fetch is abandoned.
+        this.gameVersions.values().forEach(catalog -> catalog.cancel(true));
+        this.retryScheduler.shutdownNow();
+        this.backgroundExecutor.shutdownNow();
+        this.closeClients();
+    }
+
+    /**
+     * Closes the HTTP transports and clients. Errors are ignored, as the clients are no longer used.
+     */
+    private void closeClients() {
+
+        this.transports.values().forEach(HttpTransport::close);
+
+        for (CloseableHttpClient client : this.httpClients.values()) {
+
+            try {
+
+                client.close();
+            }
+
+            catch (IOException e) {
+
+                // The client is not used anymore.
+            }
+        }
+    }
+
+    /**
+     * Creates the key for a game version catalog. Version type providers are compared using their own equality, so a
+     * catalog is only shared by tasks whose providers are known to filter it the same way. The providers are copied as
+     * the set of a task can still be changed.
+     *
+     * @param endpoint             The base URL for the API.
+     * @param versionTypeProviders The providers used to determine which version types are valid.
+     * @return The key for the catalog.
+     */
+    private static List<Object> catalogKey(String endpoint, Set<VersionTypeProvider> versionTypeProviders) {
+
+        return ImmutableList.of(endpoint, ImmutableSet.copyOf(versionTypeProviders));
+    }
+
+    /**
+     * The parameters of the service, set when it is registered.
+     */
+    public interface Parameters extends BuildServiceParameters {
+
+        /**
+         * The Gradle user home directory of the build.
+         */
+        DirectoryProperty getGradleUserHome();
+    }
+}
@@ -1,20 +1,28 @@
 package net.darkhax.curseforgegradle;
 
+import com.google.gson.JsonParseException;
+import net.darkhax.curseforgegradle.api.upload.ResponseError;
+import org.apache.http.client.utils.DateUtils;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
 
 import javax.annotation.Nullable;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.zip.GZIPInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The main plugin class that gets applied by user scripts. This plugin is entirely task based and does not need to be
- * applied. This class primarily exists as a formality.
+ * applied. When it is applied, the publish tasks of the project start fetching game versions as soon as the task graph
+ * is ready, instead of when they run.
  */
 public class CurseForgeGradlePlugin implements Plugin<Project> {
 
@@ -22,50 +30,151 @@ public class CurseForgeGradlePlugin implements Plugin<Project> {
     public void apply(Project project) {
 
         project.getLogger().debug("Applying CurseForgeGradle plugin to project {}", project.getDisplayName());
+
+        // Start fetching the game versions as soon as it is known which publish tasks will run. This allows the
+        // requests to overlap with the tasks that build the files being published. Builds that reuse a configuration
+        // cache entry skip this and fetch the versions when the tasks run.
+        final String projectPath = project.getPath();
+        project.getGradle().getTaskGraph().whenReady(graph -> {
+
+            for (Task task : graph.getAllTasks()) {
+
+                if (task instanceof TaskPublishCurseForge && task.getProject().getPath().equals(projectPath) && task.getEnabled()) {
+
+                    ((TaskPublishCurseForge) task).prefetchGameVersions();
+                }
+            }
+        });
     }
 
     /**
-     * Creates an HTTP reader with an optional API token that is specified in a format accepted by the CurseForge API.
+     * Creates a reader for a URL using an HTTP transport. The API token is specified in a format accepted by the
+     * CurseForge API. Closing the reader will release the connection back to the transport.
      *
+     * @param transport The transport used to make the request.
      * @param urlString The URL as a string.
      * @param token     An optional API token.
      * @return The HTTP reader.
      * @throws IOException This exception will be raised if the connection was rejected or could not be established.
      */
-    public static Reader fetch(String urlString, @Nullable String token) throws IOException {
+    public static Reader fetch(HttpTransport transport, String urlString, @Nullable String token) throws IOException {
+
+        final TransportResponse response = transport.get(urlString, createHeaders(token));
+        requireSuccess(response, urlString);
+        return new InputStreamReader(response.getBody(), StandardCharsets.UTF_8);
+    }
 
-        final URL url = new URL(urlString);
+    /**
+     * Creates the headers for a request with an optional API token that is specified in a format accepted by the
+     * CurseForge API.
+     *
+     * @param token An optional API token.
+     * @return The request headers. Additional headers can still be added.
+     */
+    public static Map<String, String> createHeaders(@Nullable String token) {
 
-        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.addRequestProperty("User-Agent", "CurseForgeGradle");
-        connection.setRequestProperty("Accept-Encoding", "gzip");
+        final Map<String, String> headers = new LinkedHashMap<>();
 
         if (token != null) {
 
-            connection.addRequestProperty("X-Api-Token", token);
+            headers.put("X-Api-Token", token);
         }
 
-        return getHttpReader(connection);
+        return headers;
     }
 
     /**
-     * Creates an HTTP reader that can accept GZip encoded streams when possible.
+     * Ensures that a response was successful. If it was not the response is closed and an exception is raised.
+     * CurseForge will sometimes describe the problem with a JSON error, in which case the error message is included in
+     * the exception.
      *
-     * @param connection The connection to read.
-     * @return The HTTP reader.
+     * @param response  The response to check.
+     * @param urlString The URL that was requested. This is used for error messages.
+     * @throws HttpStatusException This exception will be raised if the response was not successful.
+     */
+    public static void requireSuccess(TransportResponse response, String urlString) throws HttpStatusException {
+
+        final int statusCode = response.getStatusCode();
+
+        if (statusCode == 200) {
+
+            return;
+        }
+
+        final HttpStatusException error = createStatusException(statusCode, response.getReasonPhrase(), response.getHeader("Content-Type"), response.getBody(), urlString, parseRetryAfter(response.getHeader("Retry-After")));
+
+        try {
+
+            response.close();
+        }
+
+        catch (IOException e) {
+
+            error.addSuppressed(e);
+        }
+
+        throw error;
+    }
+
+    /**
+     * Creates the exception for an unsuccessful response. CurseForge will sometimes describe the problem with a JSON
+     * error, in which case the error message is included in the exception.
+     *
+     * @param statusCode       The status code of the response.
+     * @param reasonPhrase     The reason phrase of the response. This is used when the response has no JSON error.
+     * @param contentType      The value of the Content-Type header, or null if the response did not have one.
+     * @param body             The body of the response, or null if it had none. This is read if it holds a JSON error.
+     * @param urlString        The URL that was requested. This is used for error messages.
+     * @param retryAfterMillis The delay requested by the response, or -1 if it did not request one.
+     * @return An exception describing the response.
+     */
+    static HttpStatusException createStatusException(int statusCode, String reasonPhrase, @Nullable String contentType, @Nullable InputStream body, String urlString, long retryAfterMillis) {
+
+        String message = reasonPhrase;
+
+        if (body != null && contentType != null && contentType.contains("json")) {
+
+            try (Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+
+                final ResponseError error = Constants.GSON.fromJson(reader, ResponseError.class);
+
+                if (error != null) {
+
+                    message = "Error code '" + error.getCode() + "', message '" + error.getMessage() + "'";
+                }
+            }
+
+            catch (IOException | JsonParseException e) {
+
+                // Fall back to the status line.
+            }
+        }
+
+        return new HttpStatusException("Server returned HTTP response code: " + statusCode + " for URL: " + urlString + ". " + message, statusCode, retryAfterMillis);
+    }
+
+    /**
+     * Reads the value of a Retry-After header. The header can either be a number of seconds or an HTTP date.
+     *
+     * @param value The value of the header, or null if the response did not have one.
+     * @return The requested delay in milliseconds, or -1 if the response did not request a valid delay.
      */
-    private static Reader getHttpReader(HttpURLConnection connection) throws IOException {
+    static long parseRetryAfter(@Nullable String value) {
+
+        if (value == null) {
+
+            return -1;
+        }
 
-        // If the server accepts GZip, use the GZip stream for faster communication.
-        if ("gzip".equals(connection.getContentEncoding())) {
+        try {
 
-            return new InputStreamReader(new GZIPInputStream(connection.getInputStream()));
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value.trim())));
         }
 
-        // The fallback is just a normal input stream.
-        else {
+        catch (NumberFormatException e) {
 
-            return new InputStreamReader(connection.getInputStream());
+            final Date date = DateUtils.parseDate(value.trim());
+            return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
         }
     }
 
@@ -0,0 +1,55 @@
+package net.darkhax.curseforgegradle;
+
+import java.io.IOException;
+
+/**
+ * Raised when the API responds to a request with an unsuccessful status code. The status code and the delay requested
+ * by the Retry-After header are kept so a {@link RetryPolicy} can decide if and when the request should be sent again.
+ */
+public class HttpStatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The status code of the response.
+     */
+    private final int statusCode;
+
+    /**
+     * The delay in milliseconds requested by the Retry-After header of the response, or -1 if the response did not
+     * request a delay.
+     */
+    private final long retryAfterMillis;
+
+    /**
+     * @param message          The error message.
+     * @param statusCode       The status code of the response.
+     * @param retryAfterMillis The delay in milliseconds requested by the response, or -1 if no delay was requested.
+     */
+    public HttpStatusException(String message, int statusCode, long retryAfterMillis) {
+
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Gets the status code of the response.
+     *
+     * @return The status code of the response.
+     */
+    public int getStatusCode() {
+
+        return this.statusCode;
+    }
+
+    /**
+     * Gets the delay requested by the Retry-After header of the response.
+     *
+     * @return The delay in milliseconds, or -1 if the response did not request a delay.
+     */
+    public long getRetryAfterMillis() {
+
+        return this.retryAfterMillis;
+    }
+}
@@ -0,0 +1,55 @@
+package net.darkhax.curseforgegradle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the HTTP requests made by the plugin. Every request goes through a transport, which covers the GET requests
+ * for the game version catalog and the multipart requests that upload files. Retries, caching and the handling of
+ * CurseForge errors happen outside of the transport, so a transport only needs to move bytes.
+ * <p>
+ * The transport used by a publish task is selected with
+ * {@link TaskPublishCurseForge#setHttpTransport(HttpTransportType)}. Transports are shared by every task in the build
+ * that uses the same settings, so implementations must be safe to use from several threads at the same time.
+ */
+public interface HttpTransport extends Closeable {
+
+    /**
+     * Sends a GET request.
+     *
+     * @param url     The URL to request.
+     * @param headers The request headers, such as the API token and cache validators.
+     * @return The response. The caller must close the response once the body has been read.
+     * @throws IOException This exception will be raised if no response was received.
+     */
+    TransportResponse get(String url, Map<String, String> headers) throws IOException;
+
+    /**
+     * Sends a multipart upload request. The request has a {@code metadata} part with the upload metadata as JSON and a
+     * {@code file} part with the contents of the file.
+     * <p>
+     * Blocking transports may send the request on the calling thread and return a future that has already completed.
+     * Non-blocking transports return straight away and complete the future once the response has been received.
+     *
+     * @param request The upload to send.
+     * @return A future that completes with the response, or with an {@link IOException} if no response was received.
+     * The body of the response has already been read into memory.
+     */
+    CompletableFuture<TransportResponse> upload(UploadRequest request);
+
+    /**
+     * Checks if the transport sends uploads without blocking the calling thread. Many uploads can then be in flight at
+     * the same time without holding a thread for each one.
+     *
+     * @return If uploads are sent without blocking the calling thread.
+     */
+    default boolean isNonBlocking() {
+
+        return false;
+    }
+
+    @Override
+    void close();
+}
@@ -0,0 +1,19 @@
+package net.darkhax.curseforgegradle;
+
+/**
+ * The {@link HttpTransport} implementations that a publish task can use.
+ */
+public enum HttpTransportType {
+
+    /**
+     * Sends requests using the pooled Apache HTTP client. Each upload holds a thread until its response has been
+     * received. See {@link ApacheHttpTransport}.
+     */
+    APACHE,
+
+    /**
+     * Sends requests using the HTTP client of the JDK. Uploads are sent without holding a thread for each one. This
+     * requires Java 11 or newer. See {@link JdkHttpTransport}.
+     */
+    JDK
+}
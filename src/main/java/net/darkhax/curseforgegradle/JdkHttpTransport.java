@@ -0,0 +1,46 @@
+package net.darkhax.curseforgegradle;
+
+import org.gradle.api.GradleException;
+
+/**
+ * A transport that sends requests using the HTTP client of the JDK. Uploads are sent without holding a thread for each
+ * request, so many uploads can be in flight at the same time while only a few threads send the request bodies and
+ * handle the responses.
+ * <p>
+ * The HTTP client was added in Java 11. This is the Java 8 version of the class, which only reports that the transport
+ * is not available. Publish tasks reject the transport when it is selected on Java 8, so it is never created. The
+ * plugin jar is a multi-release jar, and on Java 11 and newer this class is replaced by the version in
+ * {@code META-INF/versions/11}. Both versions must keep the same static methods.
+ */
+public final class JdkHttpTransport {
+
+    private JdkHttpTransport() {
+
+    }
+
+    /**
+     * Checks if the transport can be used on the current Java version.
+     *
+     * @return If the transport is available.
+     */
+    public static boolean isAvailable() {
+
+        return false;
+    }
+
+    /**
+     * Creates a new transport.
+     *
+     * @param maxInFlight    The maximum number of uploads that are sent at the same time. Further uploads wait for one
+     *                       of these to finish.
+     * @param threads        The number of threads used to send request bodies and handle responses.
+     * @param connectTimeout The time in seconds to wait for a connection to be established.
+     * @param socketTimeout  The time in seconds to wait for the response to a GET request.
+     * @return The new transport.
+     * @throws GradleException This exception will always be raised, as the transport requires Java 11 or newer.
+     */
+    public static HttpTransport create(int maxInFlight, int threads, int connectTimeout, int socketTimeout) {
+
+        throw new GradleException("The JDK HTTP transport requires Java 11 or newer.");
+    }
+}
@@ -0,0 +1,255 @@
+package net.darkhax.curseforgegradle;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+import javax.annotation.Nullable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A multipart body that reads the file from memory mapped regions instead of a {@link java.io.FileInputStream}. This is
+ * not a zero-copy transfer. HttpClient 4 only exposes the connection as an {@link OutputStream}, so every byte is still
+ * copied once from the mapped pages into a heap buffer before it is written. What mapping saves is the read system
+ * call for each buffer, and regions mapped ahead of time are shared by every upload of the same file. When a region can
+ * not be mapped the rest of the file is read from the file channel into the same buffer.
+ * <p>
+ * Mapping is skipped on Windows, where a mapped file stays locked until the buffer is garbage collected. This would
+ * prevent the build from deleting or replacing the file after it has been published.
+ */
+public class MappedFileBody extends AbstractContentBody {
+
+    /**
+     * The size of the regions the file is mapped in. This keeps large files from reserving their full size in address
+     * space at once.
+     */
+    private static final long MAP_REGION_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The size of the heap buffer the file is copied through on its way to the connection stream.
+     */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Whether the current platform allows files to be mapped without side effects.
+     */
+    static final boolean CAN_MAP = !System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
+    /**
+     * The file to send.
+     */
+    private final File file;
+
+    /**
+     * The file name sent to the server.
+     */
+    private final String fileName;
+
+    /**
+     * Regions of the file that were mapped ahead of time and may be shared with other bodies. When this is null the
+     * file is mapped while it is being sent.
+     */
+    @Nullable
+    private final List<ByteBuffer> regions;
+
+    /**
+     * @param file The file to send. The name of the file is sent as the file name of the part.
+     */
+    public MappedFileBody(File file) {
+
+        this(file, ContentType.DEFAULT_BINARY, file.getName());
+    }
+
+    /**
+     * @param file        The file to send.
+     * @param contentType The content type of the part.
+     * @param fileName    The file name sent to the server.
+     */
+    public MappedFileBody(File file, ContentType contentType, String fileName) {
+
+        this(file, null, contentType, fileName);
+    }
+
+    /**
+     * @param file        The file to send.
+     * @param regions     The mapped regions of the file, created by {@link #map(Path)}. These are never modified, so
+     *                    they can be shared by several bodies.
+     * @param contentType The content type of the part.
+     * @param fileName    The file name sent to the server.
+     */
+    MappedFileBody(File file, @Nullable List<ByteBuffer> regions, ContentType contentType, String fileName) {
+
+        super(contentType);
+        this.file = file;
+        this.regions = regions;
+        this.fileName = fileName;
+    }
+
+    @Override
+    public void writeTo(OutputStream output) throws IOException {
+
+        final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+
+        if (this.regions != null) {
+
+            for (ByteBuffer region : this.regions) {
+
+                // Each write uses its own view so the shared regions can be sent by several uploads at once.
+                copy(region.duplicate(), buffer, output);
+            }
+
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+
+            final long size = channel.size();
+            long position = 0;
+
+            while (CAN_MAP && position < size) {
+
+                final long regionSize = Math.min(MAP_REGION_SIZE, size - position);
+                final MappedByteBuffer region;
+
+                try {
+
+                    region = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+                }
+
+                catch (IOException | UnsupportedOperationException e) {
+
+                    // Some file systems do not support mapping. The rest of the file is read below.
+                    break;
+                }
+
+                copy(region, buffer, output);
+                position += regionSize;
+            }
+
+            final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+            channel.position(position);
+
+            while (position < size) {
+
+                wrapped.clear();
+                final int read = channel.read(wrapped);
+
+                if (read < 0) {
+
+                    throw new EOFException("File " + this.file + " ended unexpectedly while it was being sent.");
+                }
+
+                output.write(buffer, 0, read);
+                position += read;
+            }
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of a mapped region to a stream.
+     *
+     * @param region The region to write. Its position is moved to its limit.
+     * @param buffer The heap buffer the bytes are copied through.
+     * @param output The stream to write to.
+     * @throws IOException This exception will be raised if the stream could not be written to.
+     */
+    private static void copy(ByteBuffer region, byte[] buffer, OutputStream output) throws IOException {
+
+        while (region.hasRemaining()) {
+
+            final int length = Math.min(buffer.length, region.remaining());
+            region.get(buffer, 0, length);
+            output.write(buffer, 0, length);
+        }
+    }
+
+    /**
+     * Maps a whole file into memory so it can be shared by several bodies.
+     *
+     * @param path The file to map.
+     * @return The mapped regions of the file in order, or null if the file can not be mapped on this platform or file
+     * system.
+     * @throws IOException This exception will be raised if the file could not be opened.
+     */
+    @Nullable
+    static List<ByteBuffer> map(Path path) throws IOException {
+
+        if (!CAN_MAP) {
+
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            final long size = channel.size();
+            final List<ByteBuffer> regions = new ArrayList<>();
+
+            try {
+
+                for (long position = 0; position < size; position += MAP_REGION_SIZE) {
+
+                    regions.add(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_REGION_SIZE, size - position)));
+                }
+            }
+
+            catch (IOException | UnsupportedOperationException e) {
+
+                // Some file systems do not support mapping.
+                return null;
+            }
+
+            return regions;
+        }
+    }
+
+    /**
+     * Gets the file being sent.
+     *
+     * @return The file being sent.
+     */
+    public File getFile() {
+
+        return this.file;
+    }
+
+    @Override
+    public String getFilename() {
+
+        return this.fileName;
+    }
+
+    @Override
+    public long getContentLength() {
+
+        if (this.regions != null) {
+
+            long length = 0;
+
+            for (ByteBuffer region : this.regions) {
+
+                length += region.capacity();
+            }
+
+            return length;
+        }
+
+        return this.file.length();
+    }
+
+    @Override
+    public String getTransferEncoding() {
+
+        return MIME.ENC_BINARY;
+    }
+}
@@ -0,0 +1,90 @@
+package net.darkhax.curseforgegradle;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.gradle.api.logging.Logger;
+
+import javax.annotation.Nullable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Wraps an upload request body and counts the bytes as they are written to the connection. The progress of the upload
+ * is reported through an {@link UploadProgress}.
+ */
+final class ProgressHttpEntity extends HttpEntityWrapper {
+
+    /**
+     * The progress of the current or last attempt at writing the body.
+     */
+    private final UploadProgress progress;
+
+    /**
+     * @param entity   The request body to send.
+     * @param fileName The name of the file being sent, used in the progress updates.
+     * @param log      The logger that receives the progress updates, or null if progress is only counted.
+     */
+    ProgressHttpEntity(HttpEntity entity, String fileName, @Nullable Logger log) {
+
+        super(entity);
+        this.progress = new UploadProgress(fileName, entity.getContentLength(), log);
+    }
+
+    @Override
+    public void writeTo(OutputStream output) throws IOException {
+
+        this.progress.start();
+
+        final CountingOutputStream counter = new CountingOutputStream(output);
+        super.writeTo(counter);
+        counter.flush();
+
+        this.progress.finish();
+    }
+
+    /**
+     * Gets the number of bytes written by the current or last attempt.
+     *
+     * @return The number of bytes written.
+     */
+    long getBytesSent() {
+
+        return this.progress.getBytesSent();
+    }
+
+    /**
+     * Gets the time spent writing the body in the current or last attempt.
+     *
+     * @return The time spent writing the body in nanoseconds.
+     */
+    long getElapsedNanos() {
+
+        return this.progress.getElapsedNanos();
+    }
+
+    /**
+     * An output stream that reports every write to the progress of the entity.
+     */
+    private final class CountingOutputStream extends FilterOutputStream {
+
+        private CountingOutputStream(OutputStream output) {
+
+            super(output);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+
+            this.out.write(b);
+            progress.onSent(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+
+            this.out.write(b, off, len);
+            progress.onSent(len);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package net.darkhax.curseforgegradle;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+import org.gradle.api.GradleException;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A record of the files published by a single run of a publish task. This is written to the declared output of the
+ * task, which allows Gradle to consider the task up to date when the artifacts and their metadata have not changed
+ * since they were last published.
+ * <p>
+ * The manifest is also meant to be read by other tasks, such as tasks that announce a release or build a modpack.
+ * {@link TaskPublishCurseForge#getPublishResult()} provides the manifest of a task and carries the dependency on that
+ * task, so the IDs of the published files are available without making any requests to CurseForge.
+ */
+public final class PublishManifest {
+
+    /**
+     * The format version of the manifest. This must be incremented whenever the layout of the manifest changes.
+     */
+    private static final int MANIFEST_FORMAT = 2;
+
+    /**
+     * The format version of the manifest.
+     */
+    @Expose
+    @SerializedName("format")
+    private int format = MANIFEST_FORMAT;
+
+    /**
+     * The path of the task that published the files.
+     */
+    @Expose
+    @SerializedName("task")
+    private String task;
+
+    /**
+     * The time in milliseconds that the task finished publishing.
+     */
+    @Expose
+    @SerializedName("publishedAt")
+    private long publishedAt;
+
+    /**
+     * The time in milliseconds the task spent preparing and uploading the files.
+     */
+    @Expose
+    @SerializedName("durationMillis")
+    private long durationMillis;
+
+    /**
+     * The files that were published, in the order they were defined. Additional files follow their parent file.
+     */
+    @Expose
+    @SerializedName("files")
+    private List<PublishedFile> files = new ArrayList<>();
+
+    /**
+     * Users should not be constructing this themselves. Instances are created by the publish task, or read from the
+     * output of the task using {@link #read(File)}.
+     *
+     * @param task           The path of the task that published the files.
+     * @param durationMillis The time the task spent preparing and uploading the files.
+     */
+    PublishManifest(String task, long durationMillis) {
+
+        this.task = task;
+        this.publishedAt = System.currentTimeMillis();
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Adds a published artifact to the manifest. This is intended for internal use.
+     *
+     * @param artifact The artifact that has been published.
+     */
+    void add(UploadArtifact artifact) {
+
+        final UploadArtifact parent = artifact.getParent();
+        final ArtifactSnapshot versionSource = parent != null ? parent.getSnapshot() : artifact.getSnapshot();
+
+        final PublishedFile file = new PublishedFile();
+        file.artifact = artifact.getUploadFileName();
+        file.projectId = artifact.getProjectId();
+        file.curseFileId = artifact.getCurseFileId();
+        file.parentFileId = parent != null ? parent.getCurseFileId() : null;
+        file.gameVersionIds = versionSource != null ? versionSource.getGameVersions() : null;
+        file.metadataHash = UploadLedger.hashMetadata(artifact.createMetadata());
+        file.reusedFromLedger = artifact.isReusedFromLedger();
+        file.uploadMillis = artifact.getUploadMillis();
+        file.bytesPerSecond = artifact.getUploadThroughput();
+        this.files.add(file);
+    }
+
+    /**
+     * Writes the manifest to a file. The file is replaced atomically so a failed write never leaves a partial
+     * manifest behind.
+     *
+     * @param file The file to write.
+     * @throws IOException This exception will be raised if the file could not be written.
+     */
+    void write(File file) throws IOException {
+
+        final Path target = file.toPath().toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        final Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+        try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+
+            Constants.PRETTY_GSON.toJson(this, writer);
+        }
+
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a manifest written by a publish task.
+     *
+     * @param file The manifest file.
+     * @return The manifest.
+     * @throws GradleException This exception will be raised if the file could not be read, or was written by an
+     *                         incompatible version of the plugin.
+     */
+    public static PublishManifest read(File file) {
+
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+
+            final PublishManifest manifest = Constants.GSON.fromJson(reader, PublishManifest.class);
+
+            if (manifest == null || manifest.format != MANIFEST_FORMAT) {
+
+                throw new GradleException("The publish manifest " + file + " was written by a different version of CurseForgeGradle. Run the publish task again to replace it.");
+            }
+
+            return manifest;
+        }
+
+        catch (IOException | JsonParseException e) {
+
+            throw new GradleException("Could not read the publish manifest " + file + ". The manifest is only written when files are published, not in debug mode.", e);
+        }
+    }
+
+    /**
+     * Gets the path of the task that published the files.
+     *
+     * @return The path of the task.
+     */
+    public String getTask() {
+        return this.task;
+    }
+
+    /**
+     * Gets the time the files were published.
+     *
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getPublishedAt() {
+        return this.publishedAt;
+    }
+
+    /**
+     * Gets the time the task spent preparing and uploading the files.
+     *
+     * @return The duration in milliseconds.
+     */
+    public long getDurationMillis() {
+        return this.durationMillis;
+    }
+
+    /**
+     * Gets the published files.
+     *
+     * @return An immutable list of the published files. Additional files follow their parent file.
+     */
+    public List<PublishedFile> getFiles() {
+        return ImmutableList.copyOf(this.files);
+    }
+
+    /**
+     * Finds a published file by the name of the uploaded file.
+     *
+     * @param artifact  The name of the uploaded file, for example {@code mymod-1.0.0.jar}.
+     * @param projectId The ID of the project the file was published to.
+     * @return The published file, or null if no file with that name was published to the project.
+     */
+    @Nullable
+    public PublishedFile findFile(String artifact, long projectId) {
+
+        for (PublishedFile file : this.files) {
+
+            if (artifact.equals(file.artifact) && file.projectId != null && file.projectId == projectId) {
+
+                return file;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * A file that was published by the task.
+     */
+    public static final class PublishedFile {
+
+        /**
+         * The name of the published file.
+         */
+        @Expose
+        @SerializedName("artifact")
+        private String artifact;
+
+        /**
+         * The ID of the project the file was published to.
+         */
+        @Expose
+        @SerializedName("projectId")
+        private Long projectId;
+
+        /**
+         * The ID of the file on CurseForge.
+         */
+        @Expose
+        @SerializedName("curseFileId")
+        private Long curseFileId;
+
+        /**
+         * The ID of the parent file on CurseForge, or null if this is a parent file.
+         */
+        @Expose
+        @SerializedName("parentFileId")
+        @Nullable
+        private Long parentFileId;
+
+        /**
+         * The IDs of the game versions of the file. Additional files use the versions of their parent file.
+         */
+        @Expose
+        @SerializedName("gameVersionIds")
+        @Nullable
+        private Set<Long> gameVersionIds;
+
+        /**
+         * The hash of the upload metadata, as computed by {@link UploadLedger#hashMetadata}.
+         */
+        @Expose
+        @SerializedName("metadataHash")
+        private String metadataHash;
+
+        /**
+         * Whether the upload was skipped because the file had already been published.
+         */
+        @Expose
+        @SerializedName("reusedFromLedger")
+        private boolean reusedFromLedger;
+
+        /**
+         * The time in milliseconds the upload request took, or null if the upload was skipped.
+         */
+        @Expose
+        @SerializedName("uploadMillis")
+        @Nullable
+        private Long uploadMillis;
+
+        /**
+         * The average upload throughput in bytes per second, or null if the upload was skipped.
+         */
+        @Expose
+        @SerializedName("bytesPerSecond")
+        @Nullable
+        private Long bytesPerSecond;
+
+        public String getArtifact() {
+            return this.artifact;
+        }
+
+        public Long getProjectId() {
+            return this.projectId;
+        }
+
+        public Long getCurseFileId() {
+            return this.curseFileId;
+        }
+
+        @Nullable
+        public Long getParentFileId() {
+            return this.parentFileId;
+        }
+
+        @Nullable
+        public Set<Long> getGameVersionIds() {
+            return this.gameVersionIds;
+        }
+
+        public String getMetadataHash() {
+            return this.metadataHash;
+        }
+
+        public boolean isReusedFromLedger() {
+            return this.reusedFromLedger;
+        }
+
+        @Nullable
+        public Long getUploadMillis() {
+            return this.uploadMillis;
+        }
+
+        @Nullable
+        public Long getBytesPerSecond() {
+            return this.bytesPerSecond;
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package net.darkhax.curseforgegradle;
+
+import com.google.common.collect.Sets;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.gradle.api.logging.Logger;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Determines how requests to the API are repeated when they fail for a reason that is likely to be temporary, such as
+ * rate limiting or an overloaded server. Each retry waits longer than the previous one, with some random jitter so that
+ * parallel uploads do not retry in lockstep. A Retry-After header sent by the API is always respected. Users can
+ * configure this through the retry block of the publish task.
+ * <p>
+ * Uploads are not idempotent, as the API may have created the file even if the response never arrived. They are only
+ * retried when the request was never sent or was explicitly rejected, see {@link #isRetryableUpload(IOException)}.
+ */
+public class RetryPolicy {
+
+    /**
+     * The maximum number of times a request is sent, including the first attempt. Set this to 1 to disable retries.
+     */
+    public int maxAttempts = 4;
+
+    /**
+     * The delay in milliseconds before the first retry.
+     */
+    public long initialDelay = 1000;
+
+    /**
+     * The maximum delay in milliseconds between two attempts. This does not limit delays requested by the API.
+     */
+    public long maxDelay = 30000;
+
+    /**
+     * The factor the delay grows by after each failed attempt.
+     */
+    public double multiplier = 2;
+
+    /**
+     * The fraction of each delay that is randomized. A value of 0.5 means the actual delay is between 50% and 100% of
+     * the computed delay.
+     */
+    public double jitter = 0.5;
+
+    /**
+     * The total amount of time in milliseconds that can be spent on a request, including all attempts and delays. No
+     * further attempt is started once the next delay would exceed this budget.
+     */
+    public long timeBudget = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * The HTTP status codes that are considered temporary and will be retried.
+     */
+    public Set<Integer> retryableStatusCodes = Sets.newHashSet(408, 429, 500, 502, 503, 504);
+
+    /**
+     * The HTTP status codes that are retried for uploads. These should only be codes the API uses to reject a request
+     * without processing it, as the file may otherwise be published twice.
+     */
+    public Set<Integer> retryableUploadStatusCodes = Sets.newHashSet(429, 503);
+
+    /**
+     * Runs a request, repeating it while it fails with a retryable error and the attempts and time budget allow it.
+     *
+     * @param log         The logger used to report failed attempts.
+     * @param description A description of the request, used in log messages.
+     * @param request     The request to run.
+     * @param <T>         The type of the request result.
+     * @return The result of the first successful attempt.
+     * @throws IOException The error of the last attempt if no attempt succeeded.
+     */
+    public <T> T execute(Logger log, String description, Request<T> request) throws IOException {
+
+        return this.execute(log, description, this::isRetryable, request);
+    }
+
+    /**
+     * Runs an upload, repeating it while it fails with an error that is retryable for uploads and the attempts and time
+     * budget allow it.
+     *
+     * @param log         The logger used to report failed attempts.
+     * @param description A description of the upload, used in log messages.
+     * @param request     The upload to run.
+     * @param <T>         The type of the upload result.
+     * @return The result of the first successful attempt.
+     * @throws IOException The error of the last attempt if no attempt succeeded.
+     * @see #isRetryableUpload(IOException)
+     */
+    public <T> T executeUpload(Logger log, String description, Request<T> request) throws IOException {
+
+        return this.execute(log, description, this::isRetryableUpload, request);
+    }
+
+    /**
+     * Runs a request, repeating it while it fails with a retryable error and the attempts and time budget allow it.
+     *
+     * @param log         The logger used to report failed attempts.
+     * @param description A description of the request, used in log messages.
+     * @param retryable   Decides which errors are retried.
+     * @param request     The request to run.
+     * @param <T>         The type of the request result.
+     * @return The result of the first successful attempt.
+     * @throws IOException The error of the last attempt if no attempt succeeded.
+     */
+    private <T> T execute(Logger log, String description, Predicate<IOException> retryable, Request<T> request) throws IOException {
+
+        final long start = System.nanoTime();
+        long delay = this.initialDelay;
+
+        for (int attempt = 1; ; attempt++) {
+
+            final long attemptStart = System.nanoTime();
+
+            try {
+
+                final T result = request.run();
+
+                if (attempt > 1) {
+
+                    log.lifecycle("{} succeeded on attempt {} after {} ms.", description, attempt, elapsedMillis(start));
+                }
+
+                return result;
+            }
+
+            catch (IOException e) {
+
+                final long wait = this.getRetryWait(log, description, retryable, e, start, attemptStart, attempt, delay);
+
+                if (wait < 0) {
+
+                    throw e;
+                }
+
+                sleep(wait);
+                delay = this.getNextDelay(delay);
+            }
+        }
+    }
+
+    /**
+     * Runs an upload without blocking the calling thread, repeating it while it fails with an error that is retryable
+     * for uploads and the attempts and time budget allow it. The delays between attempts are waited out on the
+     * scheduler instead of sleeping.
+     *
+     * @param log         The logger used to report failed attempts.
+     * @param description A description of the upload, used in log messages.
+     * @param scheduler   The executor used to start the next attempt once its delay has passed.
+     * @param request     The upload to run.
+     * @param <T>         The type of the upload result.
+     * @return A future that completes with the result of the first successful attempt, or with the error of the last
+     * attempt if no attempt succeeded.
+     * @see #isRetryableUpload(IOException)
+     */
+    public <T> CompletableFuture<T> executeUploadAsync(Logger log, String description, ScheduledExecutorService scheduler, AsyncRequest<T> request) {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        this.attemptAsync(log, description, this::isRetryableUpload, scheduler, request, result, System.nanoTime(), 1, this.initialDelay);
+        return result;
+    }
+
+    /**
+     * Starts a single attempt of an asynchronous request, and schedules the next attempt if it fails with a retryable
+     * error.
+     *
+     * @param log         The logger used to report failed attempts.
+     * @param description A description of the request, used in log messages.
+     * @param retryable   Decides which errors are retried.
+     * @param scheduler   The executor used to start the next attempt once its delay has passed.
+     * @param request     The request to run.
+     * @param result      The future that receives the final result.
+     * @param start       The time in nanoseconds that the first attempt was started.
+     * @param attempt     The number of this attempt, starting at 1.
+     * @param delay       The computed delay before the next attempt, before jitter is applied.
+     * @param <T>         The type of the request result.
+     */
+    private <T> void attemptAsync(Logger log, String description, Predicate<IOException> retryable, ScheduledExecutorService scheduler, AsyncRequest<T> request, CompletableFuture<T> result, long start, int attempt, long delay) {
+
+        final long attemptStart = System.nanoTime();
+
+        request.run().whenComplete((value, error) -> {
+
+            if (error == null) {
+
+                if (attempt > 1) {
+
+                    log.lifecycle("{} succeeded on attempt {} after {} ms.", description, attempt, elapsedMillis(start));
+                }
+
+                result.complete(value);
+                return;
+            }
+
+            final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            final long wait = cause instanceof IOException ? this.getRetryWait(log, description, retryable, (IOException) cause, start, attemptStart, attempt, delay) : -1;
+
+            if (wait < 0) {
+
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            try {
+
+                scheduler.schedule(() -> this.attemptAsync(log, description, retryable, scheduler, request, result, start, attempt + 1, this.getNextDelay(delay)), wait, TimeUnit.MILLISECONDS);
+            }
+
+            catch (RejectedExecutionException e) {
+
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * Decides if a failed attempt is retried, and logs the decision.
+     *
+     * @param log          The logger used to report the failed attempt.
+     * @param description  A description of the request, used in log messages.
+     * @param retryable    Decides which errors are retried.
+     * @param error        The error raised by the attempt.
+     * @param start        The time in nanoseconds that the first attempt was started.
+     * @param attemptStart The time in nanoseconds that the failed attempt was started.
+     * @param attempt      The number of the failed attempt, starting at 1.
+     * @param delay        The computed delay before the next attempt, before jitter is applied.
+     * @return The time in milliseconds to wait before the next attempt, or -1 if the request will not be retried.
+     */
+    private long getRetryWait(Logger log, String description, Predicate<IOException> retryable, IOException error, long start, long attemptStart, int attempt, long delay) {
+
+        final long attemptMillis = elapsedMillis(attemptStart);
+
+        if (attempt >= this.maxAttempts || !retryable.test(error) || Thread.currentThread().isInterrupted()) {
+
+            log.debug("{} failed on attempt {} after {} ms and will not be retried.", description, attempt, attemptMillis, error);
+            return -1;
+        }
+
+        final long wait = this.getDelay(error, delay);
+
+        if (elapsedMillis(start) + wait > this.timeBudget) {
+
+            log.warn("{} failed on attempt {} after {} ms. The retry time budget of {} ms has been used up.", description, attempt, attemptMillis, this.timeBudget);
+            return -1;
+        }
+
+        log.warn("{} failed on attempt {} of {} after {} ms. {} Retrying in {} ms.", description, attempt, this.maxAttempts, attemptMillis, error.getMessage(), wait);
+        return wait;
+    }
+
+    /**
+     * Gets the computed delay for the attempt after the next one.
+     *
+     * @param delay The computed delay for the next attempt.
+     * @return The delay grown by the multiplier, limited to the max delay.
+     */
+    private long getNextDelay(long delay) {
+
+        return Math.min(this.maxDelay, (long) (delay * this.multiplier));
+    }
+
+    /**
+     * Checks if a response status code is considered temporary.
+     *
+     * @param statusCode The status code of the response.
+     * @return If a request that received the status code should be retried.
+     */
+    public boolean isRetryable(int statusCode) {
+
+        return this.retryableStatusCodes.contains(statusCode);
+    }
+
+    /**
+     * Checks if a request failure is considered temporary. Timeouts, dropped connections and retryable status codes are
+     * retried. Unknown hosts, TLS failures and all other errors are not.
+     *
+     * @param error The error raised by the request.
+     * @return If the request should be retried.
+     */
+    public boolean isRetryable(IOException error) {
+
+        if (error instanceof HttpStatusException) {
+
+            return this.isRetryable(((HttpStatusException) error).getStatusCode());
+        }
+
+        if (error instanceof UnknownHostException || error instanceof SSLException) {
+
+            return false;
+        }
+
+        return error instanceof InterruptedIOException || error instanceof SocketException || error instanceof NoHttpResponseException;
+    }
+
+    /**
+     * Checks if an upload response status code means the upload was rejected without being processed.
+     *
+     * @param statusCode The status code of the response.
+     * @return If an upload that received the status code should be retried.
+     */
+    public boolean isRetryableUpload(int statusCode) {
+
+        return this.retryableUploadStatusCodes.contains(statusCode);
+    }
+
+    /**
+     * Checks if an upload failure is safe to retry. Only failures to connect, which happen before any part of the
+     * request is sent, and the status codes in {@link #retryableUploadStatusCodes} are retried. Timeouts and dropped
+     * connections after the request was sent are not, as the API may have published the file anyway.
+     *
+     * @param error The error raised by the upload.
+     * @return If the upload should be retried.
+     */
+    public boolean isRetryableUpload(IOException error) {
+
+        if (error instanceof HttpStatusException) {
+
+            return this.isRetryableUpload(((HttpStatusException) error).getStatusCode());
+        }
+
+        return error instanceof ConnectException || error instanceof NoRouteToHostException || error instanceof ConnectTimeoutException;
+    }
+
+    /**
+     * Gets the delay before the next attempt. A delay requested by the API takes priority over the computed delay.
+     *
+     * @param error The error raised by the failed attempt.
+     * @param delay The computed delay for the next attempt, before jitter is applied.
+     * @return The delay in milliseconds.
+     */
+    private long getDelay(IOException error, long delay) {
+
+        if (error instanceof HttpStatusException && ((HttpStatusException) error).getRetryAfterMillis() >= 0) {
+
+            return ((HttpStatusException) error).getRetryAfterMillis();
+        }
+
+        final double jitterFraction = Math.min(1, Math.max(0, this.jitter));
+        return (long) (delay * (1 - jitterFraction * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private static long elapsedMillis(long startNanos) {
+
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+
+        try {
+
+            Thread.sleep(millis);
+        }
+
+        catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry a request.");
+        }
+    }
+
+    /**
+     * A request that can be sent more than once.
+     *
+     * @param <T> The type of the request result.
+     */
+    @FunctionalInterface
+    public interface Request<T> {
+
+        /**
+         * Sends the request.
+         *
+         * @return The result of the request.
+         * @throws IOException If the request failed.
+         */
+        T run() throws IOException;
+    }
+
+    /**
+     * A request that can be sent more than once without blocking the calling thread.
+     *
+     * @param <T> The type of the request result.
+     */
+    @FunctionalInterface
+    public interface AsyncRequest<T> {
+
+        /**
+         * Sends the request.
+         *
+         * @return A future that completes with the result of the request, or with an {@link IOException} if the
+         * request failed.
+         */
+        CompletableFuture<T> run();
+    }
+}
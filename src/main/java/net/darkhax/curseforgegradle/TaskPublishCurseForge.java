@@ -1,20 +1,32 @@
 package net.darkhax.curseforgegradle;
 
 import groovy.lang.Closure;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import net.darkhax.curseforgegradle.api.versions.GameVersions;
+import net.darkhax.curseforgegradle.api.versions.VersionCache;
 import net.darkhax.curseforgegradle.versionTypes.*;
 import org.gradle.api.Action;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.GradleException;
+import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.Transformer;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.ProjectLayout;
 import org.gradle.api.file.RegularFile;
+import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
+import org.gradle.api.provider.ProviderFactory;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
 
 import javax.annotation.Nullable;
@@ -24,6 +36,8 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A Gradle task that can publish multiple files to CurseForge. A project can define any number of these tasks, and any
@@ -31,14 +45,9 @@ import java.util.*;
  */
 public abstract class TaskPublishCurseForge extends DefaultTask {
 
-    /**
-     * The display name of the project that defined this task.
-     */
-    private final String projectDisplayName = this.getProject().getDisplayName();
-
     /**
      * An internal logger instance used to print warnings, errors, and debug information. The logger name includes the
-     * name of the project that defined this task and the name of the task.
+     * path of the project that defined this task and the name of the task.
      */
     private final Logger log;
 
@@ -74,38 +83,129 @@ public abstract class TaskPublishCurseForge extends DefaultTask {
     ));
 
     /**
-     * The game specific API endpoint. This is used to retrieve lists of valid versions for a game and to help files get
-     * uploaded to the right game.
+     * The game specific API endpoint. This is not a managed property because it has a setter that accepts other types.
      */
-    public Object apiEndpoint = "https://minecraft.curseforge.com";
+    private final Property<String> apiEndpoint;
 
     /**
-     * The API token used to publish files on your behalf. This token must have the correct project permissions for the
-     * files to be published. These tokens can be generated here: https://legacy.curseforge.com/account/api-tokens
+     * The API token used to publish files on your behalf.
      */
-    public Object apiToken;
+    private final Property<String> apiToken;
 
     /**
      * Determines if publishing should actually happen. Set this to {@code true} to log the json request instead of sending it to curse's servers.
      */
     public boolean debugMode;
 
+    /**
+     * Determines if the game version data from the API should be cached on disk. Set this to {@code false} to request
+     * the full version data from the API every time the task runs.
+     */
+    public boolean cacheVersions = true;
+
+    /**
+     * The amount of time in seconds that cached game version data is used without checking the API for changes. Once
+     * this time has passed the cached data is revalidated, which is usually much cheaper than downloading it again.
+     */
+    public long versionCacheTtl = TimeUnit.HOURS.toSeconds(1);
+
+    /**
+     * The maximum number of files of the task that will be uploaded at the same time. Parent files are uploaded in
+     * parallel, while additional files are uploaded once their parent file has been uploaded. When
+     * {@link #asyncUploads} is enabled, the uploads in flight are limited by {@link #httpPoolSize} instead.
+     */
+    public int uploadConcurrency = 4;
+
+    /**
+     * The maximum number of HTTP connections kept open to the API. Connections are reused between requests, including
+     * requests made by other publish tasks with the same HTTP settings.
+     */
+    public int httpPoolSize = 8;
+
+    /**
+     * The transport used to send requests to the API. See {@link #setHttpTransport(HttpTransportType)}.
+     */
+    private HttpTransportType httpTransport = HttpTransportType.APACHE;
+
+    /**
+     * Determines if files are uploaded without holding a thread for each upload. All files of the task are then sent
+     * with up to {@link #httpPoolSize} uploads in flight at the same time on {@link #asyncUploadThreads} threads. This is intended for tasks that publish a large number of files. When the
+     * selected transport is blocking, the uploads are sent using the JDK transport instead. This requires Java 11 or
+     * newer, and the blocking uploads are used on older versions.
+     */
+    public boolean asyncUploads = false;
+
+    /**
+     * The number of threads used to send files and handle responses when {@link #asyncUploads} is enabled.
+     */
+    public int asyncUploadThreads = 2;
+
+    /**
+     * The amount of time in seconds to wait for a connection to the API to be established.
+     */
+    public int httpConnectTimeout = 30;
+
+    /**
+     * The amount of time in seconds to wait for data from the API before a request is considered stalled. This applies
+     * to uploads of every transport. Stalled uploads fail without being retried, as the API may already have received
+     * the file.
+     */
+    public int httpSocketTimeout = 300;
+
+    /**
+     * Determines how requests to the API are retried when they fail for a temporary reason, such as rate limiting or an
+     * overloaded server. This applies to uploads and to game version requests, and can be configured using
+     * {@link #retry(Action)}.
+     */
+    public final RetryPolicy retryPolicy = new RetryPolicy();
+
+    /**
+     * Determines if published files are recorded in a ledger in the Gradle user home. When a build is repeated, files
+     * that were already published with the same contents and metadata are skipped and their recorded IDs are reused.
+     * Entries never expire, so a file that was deleted on CurseForge will not be published again until its entry is
+     * removed. The ledger can be cleared by deleting the {@code caches/curseforgegradle} directory of the Gradle user
+     * home. This is disabled by default.
+     */
+    public boolean useUploadLedger = false;
+
+    /**
+     * Determines if files are read from memory mapped regions of the file instead of a stream. The bytes are still
+     * copied once on their way to the connection, so this only saves the read calls and shares the mapped memory
+     * between projects that publish the same file. It has no effect on Windows, where mapped files stay locked.
+     */
+    public boolean mappedUploads = false;
+
     /**
      * This task should not be constructed manually. It will be constructed dynamically by Gradle when a user defines
      * the task. Code inside the constructor will be executed before the user configuration.
      */
     public TaskPublishCurseForge() {
 
-        this.log = Logging.getLogger("CurseForgeGradle/" + projectDisplayName + "/" + this.getName());
-        this.versionDetector = new VersionDetector(this.getProject(), this.log);
+        this.log = Logging.getLogger("CurseForgeGradle" + this.getPath().replace(':', '/'));
+        this.apiEndpoint = this.getObjectFactory().property(String.class).convention("https://minecraft.curseforge.com");
+        this.apiToken = this.getObjectFactory().property(String.class);
+        this.getResultManifest().convention(this.getProjectLayout().getBuildDirectory().file("curseforge/" + this.getName() + ".json"));
+
+        // The project is only read here, while the task is configured. Neither the task nor the version detector keeps
+        // a reference to it.
+        final Project project = this.getProject();
+        this.versionDetector = new VersionDetector(project.getPlugins(), project.getExtensions(), this.getProviderFactory(), this.log);
+
+        // Debug runs do not publish anything, so they must never make a later run look up to date.
+        this.getOutputs().upToDateWhen(task -> !((TaskPublishCurseForge) task).debugMode);
+
+        // The game version catalog is shared by every publish task in the build through this service.
+        final Provider<CurseForgeBuildService> buildService = CurseForgeBuildService.register(project.getGradle());
+        this.getBuildService().set(buildService);
+        this.usesService(buildService);
 
         // Ensure publishing takes place after the build task has completed. This is required
         // in some environments such as those with parallel task execution enabled.
-        final Task buildTask = this.getProject().getTasks().findByName("build");
+        final Task buildTask = project.getTasks().findByName("build");
 
         if (buildTask != null) {
 
-            this.mustRunAfter(this.getProject().getTasks().getByName("build"));
+            this.mustRunAfter(project.getTasks().getByName("build"));
         }
     }
 
@@ -117,6 +217,123 @@ public abstract class TaskPublishCurseForge extends DefaultTask {
     @Inject
     public abstract ObjectFactory getObjectFactory();
 
+    @Inject
+    public abstract ProviderFactory getProviderFactory();
+
+    @Inject
+    public abstract ProjectLayout getProjectLayout();
+
+    /**
+     * The game specific API endpoint. This is used to retrieve lists of valid versions for a game and to help files get
+     * uploaded to the right game.
+     */
+    @Input
+    public Provider<String> getApiEndpoint() {
+
+        return this.apiEndpoint;
+    }
+
+    /**
+     * Sets the API endpoint. This accepts strings, files, closures and providers.
+     *
+     * @param apiEndpoint The API endpoint.
+     */
+    public void setApiEndpoint(@Nullable Object apiEndpoint) {
+
+        this.apiEndpoint.set(toStringProvider(apiEndpoint, this.getProviderFactory(), this.getObjectFactory()));
+    }
+
+    /**
+     * The API token used to publish files on your behalf. This token must have the correct project permissions for the
+     * files to be published. These tokens can be generated here: https://legacy.curseforge.com/account/api-tokens
+     */
+    @Internal
+    public Provider<String> getApiToken() {
+
+        return this.apiToken;
+    }
+
+    /**
+     * Sets the API token. This accepts strings, files, closures and providers.
+     *
+     * @param apiToken The API token.
+     */
+    public void setApiToken(@Nullable Object apiToken) {
+
+        this.apiToken.set(toStringProvider(apiToken, this.getProviderFactory(), this.getObjectFactory()));
+    }
+
+    /**
+     * The transport used to send requests to the API. The Apache transport is used by default. The JDK transport
+     * requires Java 11 or newer and sends uploads without holding a thread for each one. Both send the same requests,
+     * so changing the transport does not make the task publish its files again.
+     *
+     * @return The transport used to send requests to the API.
+     */
+    @Internal
+    public HttpTransportType getHttpTransport() {
+
+        return this.httpTransport;
+    }
+
+    /**
+     * Sets the transport used to send requests to the API. The JDK transport is rejected straight away when Gradle runs
+     * on Java 8, instead of failing once the task runs.
+     *
+     * @param httpTransport The transport used to send requests to the API.
+     * @throws GradleException This exception will be raised if the transport is not available on this Java version.
+     */
+    public void setHttpTransport(HttpTransportType httpTransport) {
+
+        if (httpTransport == HttpTransportType.JDK && !JdkHttpTransport.isAvailable()) {
+
+            throw new GradleException("The JDK HTTP transport requires Gradle to run on Java 11 or newer, but it runs on Java " + System.getProperty("java.version") + ". Use the APACHE transport instead.");
+        }
+
+        this.httpTransport = httpTransport;
+    }
+
+    /**
+     * A JSON file that records the files published by the last run of this task, including their CurseForge file IDs
+     * and a hash of their metadata. This is the output of the task. When the artifacts and their configuration have
+     * not changed since the last run, Gradle considers the task up to date and nothing is uploaded again. The default
+     * location is {@code build/curseforge/<task name>.json}.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getResultManifest();
+
+    /**
+     * Provides the files published by this task, read from the {@link #getResultManifest() result manifest}. Tasks
+     * that use this provider automatically depend on this task, and can read the CurseForge file IDs, game version IDs
+     * and upload timings without making any requests to CurseForge. The manifest is not available in debug mode.
+     *
+     * @return A provider for the result of the last publish.
+     */
+    @Internal
+    public Provider<PublishManifest> getPublishResult() {
+
+        return this.getResultManifest().map(file -> PublishManifest.read(file.getAsFile()));
+    }
+
+    /**
+     * Gets the values that automatic version detection may add to the artifacts of this task. The detected versions are
+     * only known when the task runs and are added to the uploaded metadata without changing the artifacts, so the
+     * candidates are tracked as an input here to make sure the task runs again when they change.
+     *
+     * @return The values that may be detected as game versions.
+     */
+    @Input
+    public SortedSet<String> getDetectedVersionCandidates() {
+
+        return this.versionDetector.getCandidateVersions();
+    }
+
+    /**
+     * The build service that holds state shared by all publish tasks in the build.
+     */
+    @Internal
+    public abstract Property<CurseForgeBuildService> getBuildService();
+
     /**
      * Creates a new main level artifact that the plugin will attempt to publish during the {@link #publish()} step.
      * This method requires the minimum amount of information to define an artifact. Further configuration including
@@ -130,7 +347,7 @@ public abstract class TaskPublishCurseForge extends DefaultTask {
      */
     public UploadArtifact upload(Object projectId, Object toUpload) {
 
-        final UploadArtifact artifact = new UploadArtifact(toUpload, parseLong(projectId), getObjectFactory(), this.log, null);
+        final UploadArtifact artifact = new UploadArtifact(toUpload, parseLong(projectId), getObjectFactory(), getProviderFactory(), this.log, null);
         this.uploadArtifacts.add(artifact);
         return artifact;
     }
@@ -162,6 +379,16 @@ public abstract class TaskPublishCurseForge extends DefaultTask {
         this.versionDetector.isEnabled = false;
     }
 
+    /**
+     * Configures how requests to the API are retried when they fail for a temporary reason.
+     *
+     * @param action The {@link Action} used to configure the retry policy.
+     */
+    public void retry(Action<RetryPolicy> action) {
+
+        action.execute(this.retryPolicy);
+    }
+
     /**
      * Add a version type provider to the task. This provider will be used to determine the valid version types for the
      * game.
@@ -194,7 +421,7 @@ public abstract class TaskPublishCurseForge extends DefaultTask {
             // that is required to process the configuration data into a format the API can understand.
             this.initialize();
 
-            // The publishing step will iterate through all upload artifacts and publish them to CurseForge one by one.
+            // The publishing step will publish all upload artifacts to CurseForge, up to uploadConcurrency at a time.
             // The child files of an artifact will be uploaded after the parent artifact has been uploaded and the
             // upload response has been validated.
             this.publish();
@@ -212,79 +439,212 @@ public abstract class TaskPublishCurseForge extends DefaultTask {
         this.log.debug("Initializing upload task.");
 
         // An API token is required to publish a file.
-        if (apiToken == null) {
+        if (!this.getApiToken().isPresent()) {
 
             this.log.error("No API token was provided. The file could not be published!");
             throw new GradleException("Can not publish to CurseForge. No API token provided!");
         }
 
-        this.log.debug("Task configured to connect to {}", this.apiEndpoint);
+        this.log.debug("Task configured to connect to {}", this.getApiEndpoint().get());
 
-        // Request game version data from the API. This is used to map version slugs to API version IDs.
-        this.validGameVersions = new GameVersions(
-                parseString(this.apiEndpoint),
-                projectDisplayName,
-                this.getName(),
-                this.versionTypeProviders
-        );
-        this.validGameVersions.refresh(parseString(this.apiToken));
+        // Request game version data from the API. This is used to map version slugs to API version IDs. The data is
+        // shared with other publish tasks that use the same endpoint and version type providers.
+        final String endpoint = this.getApiEndpoint().get();
+        final String token = this.getApiToken().get();
+        this.validGameVersions = this.getBuildService().get().getGameVersions(endpoint, this.versionTypeProviders, () -> this.loadGameVersions(endpoint, token));
 
-        // Handle auto version detection.
+        // Handle auto version detection. The detected versions are passed to the artifacts when they are prepared,
+        // their configured game versions are an input of the task and are not changed.
         if (this.versionDetector.isEnabled) {
 
             this.versionDetector.detectVersions(this.validGameVersions);
+        }
+    }
 
-            for (String detectedVersion : this.versionDetector.getDetectedVersions()) {
+    /**
+     * Starts fetching the game version data in the background. The fetched data is picked up by {@link #initialize()}
+     * when the task runs. Any problem with the task configuration is ignored here and will be reported when the task
+     * runs instead. Whether the task is up to date is not known yet, so the data may be fetched for a task that does
+     * not run its action.
+     */
+    void prefetchGameVersions() {
+
+        if (this.uploadArtifacts.isEmpty()) {
+
+            return;
+        }
+
+        try {
+
+            final String endpoint = this.getApiEndpoint().getOrNull();
+            final String token = this.getApiToken().getOrNull();
 
-                for (UploadArtifact artifact : this.uploadArtifacts) {
+            if (endpoint == null || token == null) {
 
-                    artifact.addGameVersion(detectedVersion);
-                }
+                return;
             }
+
+            this.getBuildService().get().prefetchGameVersions(endpoint, this.versionTypeProviders, () -> this.loadGameVersions(endpoint, token));
+        }
+
+        catch (RuntimeException e) {
+
+            this.log.debug("Could not prefetch game versions.", e);
         }
     }
 
+    /**
+     * Creates and refreshes the game version data using the settings of this task.
+     *
+     * @param endpoint The base URL for the API.
+     * @param token    The CurseForge API token required to retrieve game version data.
+     * @return The refreshed game version data.
+     */
+    private GameVersions loadGameVersions(String endpoint, String token) {
+
+        final GameVersions versions = new GameVersions(
+                endpoint,
+                this.getPath(),
+                this.versionTypeProviders,
+                this.createVersionCache(),
+                this.getTransport(),
+                this.retryPolicy,
+                this.getBuildService().get().getBackgroundExecutor()
+        );
+        versions.refresh(token);
+        return versions;
+    }
+
+    /**
+     * Gets the shared HTTP transport for the transport settings of this task.
+     *
+     * @return The HTTP transport.
+     */
+    private HttpTransport getTransport() {
+
+        return this.getTransport(this.httpTransport);
+    }
+
+    /**
+     * Gets the shared HTTP transport of a type, using the HTTP settings of this task.
+     *
+     * @param type The type of transport.
+     * @return The HTTP transport.
+     */
+    private HttpTransport getTransport(HttpTransportType type) {
+
+        return this.getBuildService().get().getTransport(type, this.httpPoolSize, this.asyncUploadThreads, this.httpConnectTimeout, this.httpSocketTimeout);
+    }
+
+    /**
+     * Creates the cache used for game version data.
+     *
+     * @return The cache for game version data, or null if caching has been disabled.
+     */
+    @Nullable
+    private VersionCache createVersionCache() {
+
+        return this.cacheVersions ? new VersionCache(this.getBuildService().get().getGradleUserHome(), this.versionCacheTtl) : null;
+    }
+
     /**
      * Attempts to publish all configured artifacts through the API.
      */
     private void publish() {
 
-        final String tokenString = parseString(this.apiToken);
-        final String endpointString = parseString(this.apiEndpoint);
+        final long startTime = System.nanoTime();
+        final String tokenString = this.getApiToken().get();
+        final String endpointString = this.getApiEndpoint().get();
+        final HttpTransport transport = this.getTransport();
+        final UploadLedger ledger = this.useUploadLedger ? new UploadLedger(this.getBuildService().get().getGradleUserHome(), this.log) : null;
+        final UploadFileStore fileStore = new UploadFileStore(this.mappedUploads);
 
         // Each artifact goes through two steps. The prepare step is used to process the artifact configuration into
-        // a format accepted by the API. The second step is the upload step which posts an upload request to the API
-        // and processes the response.
-        for (UploadArtifact artifact : this.uploadArtifacts) {
+        // a format accepted by the API. Every artifact is prepared in parallel, and nothing is uploaded unless all of
+        // them are valid. The second step is the upload step which posts an upload request to the API and processes
+        // the response. Additional files are uploaded after their parent has been uploaded.
+        final UploadScheduler scheduler = new UploadScheduler(this.log, this.uploadConcurrency);
+        final ValidationProblems problems = new ValidationProblems();
+        final Collection<String> detectedVersions = this.versionDetector.getDetectedVersions();
+        scheduler.prepareAll(this.uploadArtifacts, problems, artifact -> artifact.prepareForUpload(this.validGameVersions, detectedVersions, fileStore, problems));
+
+        // The async uploads do not hold a thread while a file is sent. Many uploads can be in flight at the same time,
+        // while only a few threads are used to send them.
+        if (this.asyncUploads && !this.debugMode) {
+
+            final HttpTransport uploadTransport = transport.isNonBlocking() ? transport : JdkHttpTransport.isAvailable() ? this.getTransport(HttpTransportType.JDK) : null;
+
+            if (uploadTransport != null) {
+
+                final ScheduledExecutorService retryScheduler = this.getBuildService().get().getRetryScheduler();
+                scheduler.uploadAllAsync(this.uploadArtifacts, artifact -> artifact.beginUpload(uploadTransport, this.retryPolicy, retryScheduler, ledger, endpointString, tokenString));
+                this.writeResultManifest(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                return;
+            }
+
+            this.log.warn("Async uploads require Java 11 or newer. The files will be uploaded using blocking requests instead.");
+        }
 
-            uploadArtifact(artifact, endpointString, tokenString);
+        scheduler.uploadAll(this.uploadArtifacts, artifact -> uploadArtifact(artifact, transport, ledger, endpointString, tokenString));
+        this.writeResultManifest(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    /**
+     * Writes the result manifest for the artifacts that were published. Nothing is published in debug mode, so the
+     * manifest of an earlier run is deleted instead.
+     *
+     * @param durationMillis The time spent preparing and uploading the artifacts.
+     */
+    private void writeResultManifest(long durationMillis) {
+
+        final File manifestFile = this.getResultManifest().get().getAsFile();
+
+        try {
 
-            // Handle additional files, sometimes called sub files or child files.
-            for (UploadArtifact childArtifact : artifact.getAdditionalArtifacts()) {
+            if (this.debugMode) {
 
-                uploadArtifact(childArtifact, endpointString, tokenString);
+                Files.deleteIfExists(manifestFile.toPath());
+                return;
             }
+
+            final PublishManifest manifest = new PublishManifest(this.getPath(), durationMillis);
+
+            for (UploadArtifact artifact : this.uploadArtifacts) {
+
+                manifest.add(artifact);
+                artifact.getAdditionalArtifacts().forEach(manifest::add);
+            }
+
+            manifest.write(manifestFile);
+            this.log.debug("Wrote result manifest {}.", manifestFile);
+        }
+
+        catch (IOException e) {
+
+            this.log.error("Could not write the result manifest {}.", manifestFile);
+            throw new GradleException("Could not write the result manifest " + manifestFile + ".", e);
         }
     }
 
     /**
-     * Each artifact goes through two steps. The prepare step is used to process the artifact configuration into a
-     * format accepted by the API. The second step is the upload step which posts an upload request to the API and
-     * processes the response. If {@link #debugMode} is true, this second step will instead be replaced with logging.
+     * Runs the upload step for an artifact that has already been prepared. The upload step posts an upload request to
+     * the API and processes the response. If {@link #debugMode} is true, this step will instead be replaced with
+     * logging.
      *
-     * @param artifact Artifact being uploaded.
-     * @param endpoint The endpoint to upload the file to.
-     * @param token    The CurseForge API token used to authenticate the upload.
+     * @param artifact  Artifact being uploaded.
+     * @param transport The transport used to upload the file.
+     * @param ledger    The ledger of previously published files, or null if the ledger is disabled.
+     * @param endpoint  The endpoint to upload the file to.
+     * @param token     The CurseForge API token used to authenticate the upload.
      */
-    private void uploadArtifact(UploadArtifact artifact, String endpoint, String token) {
+    private void uploadArtifact(UploadArtifact artifact, HttpTransport transport, @Nullable UploadLedger ledger, String endpoint, String token) {
 
-        artifact.prepareForUpload(this.validGameVersions);
         if (debugMode) {
 
             artifact.logUploadMetadata(endpoint);
         } else {
 
-            artifact.beginUpload(endpoint, token);
+            artifact.beginUpload(transport, this.retryPolicy, this.getBuildService().get().getRetryScheduler(), ledger, endpoint, token).join();
         }
     }
 
@@ -307,6 +667,56 @@ public abstract class TaskPublishCurseForge extends DefaultTask {
         throw new GradleException("Could not parse long from " + obj.getClass().getName() + " of value " + obj);
     }
 
+    /**
+     * Converts a value accepted by the string properties of the plugin into a provider. Files are read through the
+     * provider factory so the configuration cache tracks them as inputs. Closures and other values are resolved by
+     * {@link #parseString(Object)} when the provider is queried, which happens before the configuration cache entry is
+     * stored. This means closures never need to be serialized.
+     * <p>
+     * The returned provider only resolves the value once. Additional files that inherit the value of their parent
+     * query the same provider, so a closure is only called and a file is only read once per build no matter how many
+     * artifacts use it.
+     *
+     * @param obj             The value to convert.
+     * @param providerFactory The project-local provider factory.
+     * @param objectFactory   The project-local object factory.
+     * @return A provider for the string value.
+     */
+    public static Provider<String> toStringProvider(@Nullable Object obj, ProviderFactory providerFactory, ObjectFactory objectFactory) {
+
+        final File file = asFile(obj);
+
+        if (file != null) {
+
+            return providerFactory.fileContents(objectFactory.fileProperty().fileValue(file)).getAsText();
+        }
+
+        if (obj instanceof Provider<?>) {
+
+            return ((Provider<?>) obj).map(new MemoizedParser());
+        }
+
+        final Supplier<String> value = Suppliers.memoize(() -> parseString(obj));
+        return providerFactory.provider(value::get);
+    }
+
+    /**
+     * Gets the file represented by a value.
+     *
+     * @param obj The value.
+     * @return The file, or null if the value does not represent a file.
+     */
+    @Nullable
+    static File asFile(@Nullable Object obj) {
+
+        if (obj instanceof RegularFile) {
+
+            return ((RegularFile) obj).getAsFile();
+        }
+
+        return obj instanceof File ? (File) obj : null;
+    }
+
     /**
      * Gradle can be annoying and represent strings as non-string objects. This allows a variety of data types to be
      * accepted.
@@ -356,4 +766,35 @@ public abstract class TaskPublishCurseForge extends DefaultTask {
 
         return obj != null ? obj.toString() : null;
     }
+
+    /**
+     * Converts the values of a provider using {@link #parseString(Object)}, reusing the last result while the provider
+     * keeps returning the same value. Gradle applies the transformer every time a mapped provider is queried.
+     */
+    private static final class MemoizedParser implements Transformer<String, Object> {
+
+        /**
+         * The last value that was converted.
+         */
+        @Nullable
+        private Object lastValue;
+
+        /**
+         * The result of converting {@link #lastValue}.
+         */
+        @Nullable
+        private String lastResult;
+
+        @Override
+        public synchronized String transform(Object value) {
+
+            if (this.lastResult == null || !value.equals(this.lastValue)) {
+
+                this.lastResult = parseString(value);
+                this.lastValue = value;
+            }
+
+            return this.lastResult;
+        }
+    }
 }
@@ -0,0 +1,124 @@
+package net.darkhax.curseforgegradle;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A response received by an {@link HttpTransport}. Closing the response closes the body, which allows the transport to
+ * reuse the connection.
+ */
+public final class TransportResponse implements Closeable {
+
+    /**
+     * The status code of the response.
+     */
+    private final int statusCode;
+
+    /**
+     * The reason phrase of the response.
+     */
+    private final String reasonPhrase;
+
+    /**
+     * The first value of each response header, keyed by the lower case header name.
+     */
+    private final Map<String, String> headers = new TreeMap<>();
+
+    /**
+     * The body of the response.
+     */
+    private final InputStream body;
+
+    /**
+     * The number of bytes sent in the request body.
+     */
+    private final long bytesSent;
+
+    /**
+     * The time in nanoseconds between sending the request and receiving the response.
+     */
+    private final long elapsedNanos;
+
+    /**
+     * @param statusCode   The status code of the response.
+     * @param reasonPhrase The reason phrase of the response. Responses that do not carry one, such as HTTP/2
+     *                     responses, can pass null to use a description of the status code instead.
+     * @param headers      The first value of each response header.
+     * @param body         The body of the response, or null if the response has no body.
+     */
+    public TransportResponse(int statusCode, @Nullable String reasonPhrase, Map<String, String> headers, @Nullable InputStream body) {
+
+        this(statusCode, reasonPhrase, headers, body, 0, 0);
+    }
+
+    /**
+     * @param statusCode   The status code of the response.
+     * @param reasonPhrase The reason phrase of the response, or null to use a description of the status code.
+     * @param headers      The first value of each response header.
+     * @param body         The body of the response, or null if the response has no body.
+     * @param bytesSent    The number of bytes sent in the request body.
+     * @param elapsedNanos The time in nanoseconds between sending the request and receiving the response.
+     */
+    public TransportResponse(int statusCode, @Nullable String reasonPhrase, Map<String, String> headers, @Nullable InputStream body, long bytesSent, long elapsedNanos) {
+
+        this.statusCode = statusCode;
+        this.reasonPhrase = reasonPhrase != null && !reasonPhrase.isEmpty() ? reasonPhrase : "HTTP " + statusCode;
+        headers.forEach((name, value) -> this.headers.putIfAbsent(name.toLowerCase(Locale.ROOT), value));
+        this.body = body != null ? body : new ByteArrayInputStream(new byte[0]);
+        this.bytesSent = bytesSent;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getStatusCode() {
+        return this.statusCode;
+    }
+
+    public String getReasonPhrase() {
+        return this.reasonPhrase;
+    }
+
+    /**
+     * Gets the value of a response header.
+     *
+     * @param name The name of the header. This is not case sensitive.
+     * @return The first value of the header, or null if the response does not have the header.
+     */
+    @Nullable
+    public String getHeader(String name) {
+        return this.headers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public InputStream getBody() {
+        return this.body;
+    }
+
+    public long getBytesSent() {
+        return this.bytesSent;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.elapsedNanos);
+    }
+
+    /**
+     * Gets the average throughput of the request body.
+     *
+     * @return The average throughput in bytes per second.
+     */
+    public long getBytesPerSecond() {
+        return this.bytesSent * TimeUnit.SECONDS.toNanos(1) / Math.max(1, this.elapsedNanos);
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        this.body.close();
+    }
+}
@@ -1,41 +1,45 @@
 package net.darkhax.curseforgegradle;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import net.darkhax.curseforgegradle.api.metadata.Metadata;
-import net.darkhax.curseforgegradle.api.metadata.ProjectRelations;
 import net.darkhax.curseforgegradle.api.upload.ResponseError;
 import net.darkhax.curseforgegradle.api.upload.ResponseSuccessful;
 import net.darkhax.curseforgegradle.api.versions.GameVersions;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.config.CookieSpecs;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.mime.MultipartEntityBuilder;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.gradle.api.GradleException;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.ProviderFactory;
+import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.Optional;
 
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class defines the script-time representation of an artifact being published to CurseForge. Users will directly
@@ -47,6 +51,8 @@ public class UploadArtifact {
 
     private final ObjectFactory objectFactory;
 
+    private final ProviderFactory providerFactory;
+
     /**
      * An internal logger used to log information about the upload process. This logger includes the name of the project
      * and the task that is publishing the artifact.
@@ -69,17 +75,26 @@ public class UploadArtifact {
     /**
      * An internal reference to the artifact being uploaded. This reference is held as an object to account for the
      * various ways files can be represented in a Gradle project. This will be resolved to a NIO File reference during
-     * the {@link #prepareForUpload(GameVersions)} step. The result of which is held by {@link #uploadFile}.
+     * the {@link #prepareForUpload(GameVersions, Collection, UploadFileStore, ValidationProblems)} step. The result of which is
+     * held by {@link #uploadFile}.
      */
     private final FileCollection artifact;
 
     /**
      * An internal reference to the upload artifact as a NIO File. This is null until the
-     * {@link #prepareForUpload(GameVersions)} step has happened.
+     * {@link #prepareForUpload(GameVersions, Collection, UploadFileStore, ValidationProblems)} step has happened.
      */
     @Nullable
     private File uploadFile = null;
 
+    /**
+     * The shared entry for {@link #uploadFile}. Artifacts that upload the same file share this entry, so the file is
+     * only validated and read once. This is null until the
+     * {@link #prepareForUpload(GameVersions, Collection, UploadFileStore, ValidationProblems)} step has happened.
+     */
+    @Nullable
+    private UploadFileStore.StoredFile storedFile = null;
+
     /**
      * The ID of the file on CurseForge. This is supplied by CurseForge after the file has been successfully uploaded
      * and will remain null until the file has been uploaded.
@@ -89,12 +104,23 @@ public class UploadArtifact {
     private Long curseFileId;
 
     /**
-     * An internal set of the CurseForge game version tags applicable for this file. These IDs are not guaranteed to be
-     * consistent across uploads, so they must be resolved using a separate API call. This set is resolved using values
-     * from {@link #gameVersions} during {@link #prepareForUpload(GameVersions)}.
+     * The average upload throughput of the file in bytes per second. This remains null until the file has been
+     * uploaded, and stays null if the upload was skipped.
      */
     @Nullable
-    private Set<Long> uploadVersions;
+    private Long uploadThroughput;
+
+    /**
+     * The time in milliseconds between sending the upload request and receiving the response from CurseForge. This
+     * remains null until the file has been uploaded, and stays null if the upload was skipped.
+     */
+    @Nullable
+    private Long uploadMillis;
+
+    /**
+     * Whether the upload was skipped because the upload ledger showed the file had already been published.
+     */
+    private boolean reusedFromLedger;
 
     /**
      * An internal list of additional files that will be uploaded as children to this artifact when this artifact is
@@ -112,10 +138,27 @@ public class UploadArtifact {
     private Map<String, String> relationships = new HashMap<>();
 
     /**
-     * An internal object that holds all project relationships for the artifact. This will be created from the values of
-     * {@link #relationships} during the {@link #prepareForUpload(GameVersions)} step.
+     * The resolved values of the artifact. Every script value is resolved once during the
+     * {@link #prepareForUpload(GameVersions, Collection, UploadFileStore, ValidationProblems)} step, and the metadata sent to
+     * CurseForge is created from this snapshot. This is null until that step has happened.
      */
-    private final ProjectRelations uploadRelations = new ProjectRelations();
+    @Nullable
+    private ArtifactSnapshot snapshot;
+
+    /**
+     * The names and slugs of the game versions the file is uploaded with. This holds the configured
+     * {@link #gameVersions} and the versions detected by the publish task, which are kept apart so the configuration is
+     * never changed while the task runs. This is empty until the
+     * {@link #prepareForUpload(GameVersions, Collection, UploadFileStore, ValidationProblems)} step has happened.
+     */
+    private Set<String> uploadGameVersions = Collections.emptySet();
+
+    /**
+     * The file the changelog is read from, which has no value if the changelog was not defined as a file. This is kept
+     * so a missing changelog file can be reported instead of silently publishing the file without a changelog. Sub files
+     * follow the changelog file of their parent the same way they follow its changelog.
+     */
+    private final Property<File> changelogFile;
 
     // --- TASK PROPERTIES --- //
 
@@ -123,25 +166,25 @@ public class UploadArtifact {
      * An optional changelog for this file. This is displayed on the CurseForge website, and it's use is highly
      * recommended. For best results this should be defined using a UTF-8 string.
      * <p>
-     * When a sub file is created using {@link #withAdditionalFile(Object)} it will inherit the current changelog value.
-     * This can still be changed independently after creation.
+     * A sub file created using {@link #withAdditionalFile(Object)} uses the changelog of this file, including changes
+     * made to it after the sub file was created, until the sub file sets a changelog of its own.
      */
-    public Object changelog = null;
+    private final Property<String> changelog;
 
     /**
      * The type of changelog being defined. CurseForge supports various formats such as markdown and HTML however the
      * default format is plaintext.
      * <p>
-     * When a sub file is created using {@link #withAdditionalFile(Object)} it will inherit the current changelog type.
-     * This can still be changed independently after creation.
+     * A sub file created using {@link #withAdditionalFile(Object)} uses the changelog type of this file, including
+     * changes made to it after the sub file was created, until the sub file sets a changelog type of its own.
      */
-    public Object changelogType = Constants.CHANGELOG_TEXT;
+    private final Property<String> changelogType;
 
     /**
      * The display name for the file on CurseForge. When defined this will hide the name of the file on CurseForge. The
      * use of this property is generally discouraged.
      */
-    public Object displayName = null;
+    private final Property<String> displayName;
 
     /**
      * A set of game versions associated with the artifact. At least one game version is required to upload an artifact.
@@ -157,10 +200,10 @@ public class UploadArtifact {
      * The type of release for this file. The default release type is an alpha. When using something like CI to automate
      * bleeding edge releases it is recommended to retain the alpha release type.
      * <p>
-     * When a sub file is created using {@link #withAdditionalFile(Object)} it will inherit the current release type.
-     * This can still be changed independently after creation.
+     * A sub file created using {@link #withAdditionalFile(Object)} uses the release type of this file, including
+     * changes made to it after the sub file was created, until the sub file sets a release type of its own.
      */
-    public Object releaseType = Constants.RELEASE_TYPE_ALPHA;
+    private final Property<String> releaseType;
 
     /**
      * These are created using a helper method from TaskPublishCurseForge. Users should never construct this manually.
@@ -168,18 +211,26 @@ public class UploadArtifact {
      * @param artifact      The artifact to publish. This is not necessarily a file and may not be valid until later in
      *                      the build process.
      * @param projectId     The ID of the project to publish this artifact to.
-     * @param objectFactory The project-local object factory.
-     * @param log           A logger used to help with debugging. This is taken from the Task that define the artifact
-     *                      and is unique to each task.
-     * @param parent        An optional parent artifact. When defined the current artifact is treated as a
-     *                      child/additional/sub file.
-     */
-    protected UploadArtifact(Object artifact, Long projectId, ObjectFactory objectFactory, Logger log, @Nullable UploadArtifact parent) {
+     * @param objectFactory   The project-local object factory.
+     * @param providerFactory The project-local provider factory.
+     * @param log             A logger used to help with debugging. This is taken from the Task that define the
+     *                        artifact and is unique to each task.
+     * @param parent          An optional parent artifact. When defined the current artifact is treated as a
+     *                        child/additional/sub file.
+     */
+    protected UploadArtifact(Object artifact, Long projectId, ObjectFactory objectFactory, ProviderFactory providerFactory, Logger log, @Nullable UploadArtifact parent) {
         this.objectFactory = objectFactory;
+        this.providerFactory = providerFactory;
         this.log = log;
         this.projectId = projectId;
         this.parent = parent;
 
+        this.changelog = objectFactory.property(String.class);
+        this.changelogFile = objectFactory.property(File.class);
+        this.changelogType = objectFactory.property(String.class).convention(Constants.CHANGELOG_TEXT);
+        this.displayName = objectFactory.property(String.class);
+        this.releaseType = objectFactory.property(String.class).convention(Constants.RELEASE_TYPE_ALPHA);
+
         ConfigurableFileCollection artifactContainer = objectFactory.fileCollection().from(artifact);
         artifactContainer.disallowChanges();
         this.artifact = artifactContainer;
@@ -190,6 +241,124 @@ public class UploadArtifact {
         return artifact;
     }
 
+    /**
+     * Gets the ID of the project this artifact is published to.
+     *
+     * @return The CurseForge project ID.
+     */
+    @Input
+    public Long getProjectId() {
+        return this.projectId;
+    }
+
+    /**
+     * Gets the game versions defined for this artifact. Versions found by automatic version detection are only added
+     * when the task runs.
+     *
+     * @return The game versions defined for this artifact.
+     */
+    @Input
+    public Set<String> getGameVersions() {
+        return this.gameVersions;
+    }
+
+    /**
+     * Gets the relations between this artifact and other projects.
+     *
+     * @return An immutable map of project slugs to relation types.
+     */
+    @Input
+    public Map<String, String> getRelations() {
+        return ImmutableMap.copyOf(this.relationships);
+    }
+
+    /**
+     * An optional changelog for this file. This is displayed on the CurseForge website, and it's use is highly
+     * recommended.
+     *
+     * @return The changelog property.
+     */
+    @Input
+    @Optional
+    public Property<String> getChangelog() {
+        return this.changelog;
+    }
+
+    /**
+     * Sets the changelog. This accepts the same values as the previous Object based property, such as strings, files,
+     * closures and providers. Files are read lazily and tracked as build configuration inputs.
+     *
+     * @param changelog The changelog.
+     */
+    public void setChangelog(@Nullable Object changelog) {
+
+        this.changelogFile.set(TaskPublishCurseForge.asFile(changelog));
+        this.changelog.set(TaskPublishCurseForge.toStringProvider(changelog, this.providerFactory, this.objectFactory));
+    }
+
+    /**
+     * The type of changelog being defined. The default format is plaintext.
+     *
+     * @return The changelog type property.
+     */
+    @Input
+    @Optional
+    public Property<String> getChangelogType() {
+        return this.changelogType;
+    }
+
+    /**
+     * Sets the changelog type. This accepts strings, files, closures and providers.
+     *
+     * @param changelogType The changelog type.
+     */
+    public void setChangelogType(@Nullable Object changelogType) {
+
+        this.changelogType.set(TaskPublishCurseForge.toStringProvider(changelogType, this.providerFactory, this.objectFactory));
+    }
+
+    /**
+     * The display name for the file on CurseForge.
+     *
+     * @return The display name property.
+     */
+    @Input
+    @Optional
+    public Property<String> getDisplayName() {
+        return this.displayName;
+    }
+
+    /**
+     * Sets the display name. This accepts strings, files, closures and providers.
+     *
+     * @param displayName The display name.
+     */
+    public void setDisplayName(@Nullable Object displayName) {
+
+        this.displayName.set(TaskPublishCurseForge.toStringProvider(displayName, this.providerFactory, this.objectFactory));
+    }
+
+    /**
+     * The type of release for this file. The default release type is an alpha.
+     *
+     * @return The release type property.
+     */
+    @Input
+    @Optional
+    public Property<String> getReleaseType() {
+        return this.releaseType;
+    }
+
+    /**
+     * Sets the release type. This accepts strings, files, closures and providers.
+     *
+     * @param releaseType The release type.
+     */
+    public void setReleaseType(@Nullable Object releaseType) {
+
+        this.releaseType.set(TaskPublishCurseForge.toStringProvider(releaseType, this.providerFactory, this.objectFactory));
+    }
+
     /**
      * Creates a new additional file that will be uploaded along with this main file. These files are sometimes called
      * child files or sub files. Only parent files can have additional files. Attempting to create an additional file on
@@ -211,10 +380,11 @@ public class UploadArtifact {
             throw new GradleException("Child artifacts must not have their own children. Artifacts can only be nested one layer deep.");
         }
 
-        final UploadArtifact subFile = new UploadArtifact(file, this.projectId, this.objectFactory, this.log, this);
-        subFile.changelogType = this.changelogType;
-        subFile.changelog = this.changelog;
-        subFile.releaseType = this.releaseType;
+        final UploadArtifact subFile = new UploadArtifact(file, this.projectId, this.objectFactory, this.providerFactory, this.log, this);
+        subFile.changelogType.set(this.changelogType);
+        subFile.changelog.set(this.changelog);
+        subFile.changelogFile.set(this.changelogFile);
+        subFile.releaseType.set(this.releaseType);
         subFile.relationships = new HashMap<>(this.relationships);
 
         this.additionalFiles.add(subFile);
@@ -393,25 +563,62 @@ public class UploadArtifact {
 
     /**
      * Prepares the artifact for being uploaded. This will resolve some configured properties into a format consumable
-     * by the API. This is intended for internal use.
+     * by the API. Problems with the configuration are added to the given problems instead of raising an exception, so
+     * every problem with every artifact can be reported at once. This is intended for internal use.
      *
      * @param validGameVersions The valid game version data from the API.
+     * @param detectedVersions  The game versions detected by the publish task, uploaded along with the configured ones.
+     * @param fileStore         The files of the publish task. Artifacts that upload the same file share its entry.
+     * @param problems          The problems found while preparing the artifacts of the publish task.
      */
-    public final void prepareForUpload(GameVersions validGameVersions) {
+    public final void prepareForUpload(GameVersions validGameVersions, Collection<String> detectedVersions, UploadFileStore fileStore, ValidationProblems problems) {
 
         this.uploadFile = this.artifact.getSingleFile();
+        this.storedFile = fileStore.get(this.uploadFile);
 
-        // Make sure the file being uploaded actually exists.
-        if (!this.uploadFile.exists()) {
+        // Make sure the file being uploaded actually exists. This is only checked for the first artifact using the file.
+        try {
+
+            this.storedFile.load();
+        }
+
+        catch (FileNotFoundException e) {
 
             this.log.error("Could not find the file to upload. Expected {}", uploadFile.getAbsolutePath());
-            throw new GradleException("The expected upload artifact does not exist!", new FileNotFoundException(uploadFile.getAbsolutePath()));
+            problems.add(this, "The expected upload artifact " + this.uploadFile.getAbsolutePath() + " does not exist.", "Make sure the task that creates the file runs before this task, for example by passing the task to upload().");
+        }
+
+        catch (IOException e) {
+
+            this.log.error("Could not read artifact {}!", this.uploadFile.getName());
+            problems.add(this, "Could not read artifact " + this.uploadFile.getName() + ". " + e.getMessage(), null);
         }
 
         this.log.debug("Preparing to upload file {}.", this.uploadFile.getName());
 
-        String parsedChangelogType = TaskPublishCurseForge.parseString(this.changelogType);
-        String parsedReleaseType = TaskPublishCurseForge.parseString(this.releaseType);
+        // Each value is resolved exactly once here. Additional files that inherit a value from their parent share the
+        // parent's memoized provider, so a changelog closure or file is only resolved once for the whole group.
+        final String parsedChangelogType = this.changelogType.getOrNull();
+        final String parsedReleaseType = this.releaseType.getOrNull();
+        final String parsedDisplayName = this.displayName.getOrNull();
+        String parsedChangelog = null;
+
+        try {
+
+            parsedChangelog = this.changelog.getOrNull();
+
+            final File parsedChangelogFile = this.changelogFile.getOrNull();
+
+            if (parsedChangelog == null && parsedChangelogFile != null) {
+
+                problems.add(this, "The changelog file " + parsedChangelogFile.getAbsolutePath() + " does not exist.", "Check the path of the changelog file.");
+            }
+        }
+
+        catch (GradleException e) {
+
+            problems.add(this, e.getMessage() + (e.getCause() != null ? " " + e.getCause().getMessage() : ""), "Check that the changelog file exists, or that the changelog closure or provider can be resolved.");
+        }
 
         // Make sure a valid changelog type is being used.
         if (!Constants.VALID_CHANGELOG_TYPES.contains(parsedChangelogType)) {
@@ -437,12 +644,24 @@ public class UploadArtifact {
 
                 this.log.warn("The relation type {} to project {} for file {} is not recognized.", relationType, projectSlug, uploadFile.getName());
             }
+        }
+
+        // Resolve game versions from strings to IDs using the results from the CurseForge API. Detected versions have
+        // already been checked against the same data.
+        this.uploadGameVersions = new LinkedHashSet<>(this.gameVersions);
+        this.uploadGameVersions.addAll(detectedVersions);
+
+        final List<String> invalidVersions = new ArrayList<>();
+        final Set<Long> uploadVersions = validGameVersions.resolveVersions(this.uploadGameVersions, invalidVersions);
+
+        for (String invalidVersion : invalidVersions) {
 
-            this.uploadRelations.addRelationship(projectSlug, relationType);
+            problems.add(this, "Version " + invalidVersion + " is not valid for this game.", "Use the name or slug of a version listed for the game on CurseForge.");
         }
 
-        // Resolve game versions from strings to IDs using the results from the CurseForge API.
-        this.uploadVersions = validGameVersions.resolveVersions(this.gameVersions);
+        // Only parent artifacts can define upload versions. The API gets upset if you give it an empty array or an
+        // array that matches the parent. Only a null value is accepted for child files.
+        this.snapshot = new ArtifactSnapshot(parsedChangelog, parsedChangelogType, parsedDisplayName, parsedReleaseType, this.parent == null ? uploadVersions : null, this.relationships);
     }
 
     /**
@@ -466,7 +685,7 @@ public class UploadArtifact {
         this.log.lifecycle(Constants.PRETTY_GSON.toJson(this.createMetadata()));
 
         StringJoiner prettyVersions = new StringJoiner(", ");
-        for (String gameVersion : this.gameVersions) {
+        for (String gameVersion : this.uploadGameVersions) {
 
             prettyVersions.add(gameVersion);
         }
@@ -474,64 +693,194 @@ public class UploadArtifact {
     }
 
     /**
-     * Triggers the post request to the API that will begin the upload of the artifact. This is intended for internal
-     * use.
+     * Starts the upload of the artifact. When a ledger is given, the upload is skipped if the ledger shows that the same
+     * file with the same metadata was already published to the same project. The recorded file ID is then reused, so
+     * additional files can still reference it as their parent. The bytes sent, throughput and estimated time remaining
+     * are logged periodically while a large file is being sent, if the transport supports it. This is intended for
+     * internal use.
+     * <p>
+     * Non-blocking transports return straight away, and failed attempts are retried on the retry scheduler. Blocking
+     * transports send the upload and its retries on the calling thread, and the returned future has already completed.
      *
-     * @param endpoint The endpoint to upload the file to.
-     * @param token    The CurseForge API token used to authenticate the upload.
+     * @param transport      The transport used to upload the file.
+     * @param retryPolicy    The policy used to retry uploads that were never sent or were rejected.
+     * @param retryScheduler The executor used to start retries of non-blocking uploads.
+     * @param ledger         The ledger of previously published files, or null if the ledger is disabled.
+     * @param endpoint       The endpoint to upload the file to.
+     * @param token          The CurseForge API token used to authenticate the upload.
+     * @return A future that completes once the upload response has been handled.
      */
-    public final void beginUpload(String endpoint, String token) {
+    public final CompletableFuture<Void> beginUpload(HttpTransport transport, RetryPolicy retryPolicy, ScheduledExecutorService retryScheduler, @Nullable UploadLedger ledger, String endpoint, String token) {
+
+        final String ledgerKey;
 
-        final HttpClient webClient = HttpClientBuilder.create().setDefaultRequestConfig(RequestConfig.custom().setCookieSpec(CookieSpecs.STANDARD).build()).setUserAgent("CurseForgeGradle").build();
+        try {
+
+            // The file is only hashed when the ledger needs it.
+            ledgerKey = ledger != null ? ledger.createKey(endpoint, this.projectId, this.storedFile.getHash(), this.createMetadata()) : null;
+        }
+
+        catch (IOException e) {
+
+            throw new GradleException("Failed to read artifact " + this.uploadFile.getName() + "!", e);
+        }
 
-        final MultipartEntityBuilder requestEntity = MultipartEntityBuilder.create();
-        requestEntity.addTextBody("metadata", Constants.GSON.toJson(this.createMetadata()), ContentType.APPLICATION_JSON);
-        requestEntity.addBinaryBody("file", this.uploadFile);
+        final Long publishedId = ledger != null ? ledger.find(ledgerKey) : null;
 
-        final HttpPost request = new HttpPost(getUploadTarget(endpoint));
-        request.addHeader("X-Api-Token", token);
-        request.setEntity(requestEntity.build());
+        if (publishedId != null) {
+
+            this.curseFileId = publishedId;
+            this.reusedFromLedger = true;
+            this.log.lifecycle("Artifact {} was already published with ID {}. Skipping upload.", this.uploadFile.getName(), publishedId);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final String fileName = this.uploadFile.getName();
+        final String target = getUploadTarget(endpoint);
+        final String description = "Upload of " + fileName;
+
+        final UploadRequest request = new UploadRequest(target, token, Constants.GSON.toJson(this.createMetadata()), this.storedFile, fileName, this.log);
+
+        final RetryPolicy.AsyncRequest<TransportResponse> attempt = () -> transport.upload(request).thenApply(response -> {
+
+            // Rejected uploads are raised so they can be retried. Other failures are handled below.
+            if (retryPolicy.isRetryableUpload(response.getStatusCode())) {
+
+                try {
+
+                    CurseForgeGradlePlugin.requireSuccess(response, target);
+                }
+
+                catch (HttpStatusException e) {
+
+                    throw new CompletionException(e);
+                }
+            }
+
+            return response;
+        });
+
+        final long startTime = System.nanoTime();
+        this.log.debug("Initiating upload of {}.", fileName);
+        final CompletableFuture<TransportResponse> response;
+
+        if (transport.isNonBlocking()) {
+
+            response = retryPolicy.executeUploadAsync(this.log, description, retryScheduler, attempt);
+        }
+
+        else {
+
+            response = new CompletableFuture<>();
+
+            try {
+
+                response.complete(retryPolicy.executeUpload(this.log, description, () -> awaitResponse(attempt.run())));
+            }
+
+            catch (IOException e) {
+
+                response.completeExceptionally(e);
+            }
+        }
+
+        return response.handle((result, error) -> {
+
+            try {
+
+                if (error != null) {
+
+                    throw error instanceof IOException ? (IOException) error : new IOException(error);
+                }
+
+                this.readUploadResponse(result, startTime);
+            }
+
+            catch (IOException e) {
+
+                this.log.error("Failed to upload artifact {}!", fileName);
+                throw new GradleException("Failed to upload artifact!", e);
+            }
+
+            if (ledger != null) {
+
+                ledger.record(ledgerKey, this.curseFileId, fileName);
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Waits for the response of a blocking transport.
+     *
+     * @param response The pending response.
+     * @return The response.
+     * @throws IOException The error of the request if it failed.
+     */
+    private static TransportResponse awaitResponse(CompletableFuture<TransportResponse> response) throws IOException {
 
         try {
 
-            this.log.debug("Initiating upload of {}.", this.uploadFile.getName());
-            final HttpResponse response = webClient.execute(request);
+            return response.join();
+        }
+
+        catch (CompletionException e) {
+
+            if (e.getCause() instanceof IOException) {
+
+                throw (IOException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Handles the response to an upload request. A successful response provides the ID of the published file, and a
+     * rejected upload is reported with the error given by CurseForge.
+     *
+     * @param response  The response to the upload.
+     * @param startTime The time in nanoseconds that the upload was started.
+     * @throws IOException     This exception will be raised if the response could not be read.
+     * @throws GradleException This exception will be raised if CurseForge rejected the upload.
+     */
+    private void readUploadResponse(TransportResponse response, long startTime) throws IOException {
+
+        // Handles when an upload was successful.
+        if (response.getStatusCode() == 200) {
 
-            // Handles when an upload was successful.
-            if (response.getStatusLine().getStatusCode() == 200) {
+            try (Reader reader = new InputStreamReader(response.getBody(), StandardCharsets.UTF_8)) {
 
-                final InputStreamReader reader = new InputStreamReader(response.getEntity().getContent());
                 this.curseFileId = Constants.GSON.fromJson(reader, ResponseSuccessful.class).getId();
-                reader.close();
-                this.log.debug("Artifact {} uploaded with ID {}.", this.uploadFile.getName(), this.curseFileId);
             }
 
-            // Handles when the upload was rejected by CurseForge.
-            else {
+            this.uploadThroughput = response.getBytesPerSecond();
+            this.uploadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            this.log.debug("Artifact {} uploaded with ID {}.", this.uploadFile.getName(), this.curseFileId);
+            this.log.info("Sent {} for artifact {} in {} ms at {}/s.", UploadProgress.formatBytes(response.getBytesSent()), this.uploadFile.getName(), response.getElapsedMillis(), UploadProgress.formatBytes(this.uploadThroughput));
+        }
 
-                int errorCode = response.getStatusLine().getStatusCode();
-                String message = response.getStatusLine().getReasonPhrase();
+        // Handles when the upload was rejected by CurseForge.
+        else {
 
-                // Sometimes CurseForge will give a custom error message so this is handled here.
-                if (response.getFirstHeader("content-type").getValue().contains("json")) {
+            int errorCode = response.getStatusCode();
+            String message = response.getReasonPhrase();
+            final String contentType = response.getHeader("content-type");
 
-                    final InputStreamReader reader = new InputStreamReader(response.getEntity().getContent());
-                    ResponseError error = Constants.GSON.fromJson(reader, ResponseError.class);
-                    reader.close();
+            // Sometimes CurseForge will give a custom error message so this is handled here.
+            if (contentType != null && contentType.contains("json")) {
 
+                try (Reader reader = new InputStreamReader(response.getBody(), StandardCharsets.UTF_8)) {
+
+                    final ResponseError error = Constants.GSON.fromJson(reader, ResponseError.class);
                     errorCode = error.getCode();
                     message = error.getMessage();
                 }
-
-                this.log.error("Curse rejected artifact {} with error code '{}' and message '{}'.", this.uploadFile.getName(), errorCode, message);
-                throw new GradleException("Failed to upload artifact " + this.uploadFile.getName() + ". Error code '" + errorCode + "', message '" + message + "'.");
             }
-        }
 
-        catch (IOException e) {
-
-            this.log.error("Failed to upload artifact {}!", this.uploadFile.getName());
-            throw new GradleException("Failed to upload artifact!", e);
+            this.log.error("Curse rejected artifact {} with error code '{}' and message '{}'.", this.uploadFile.getName(), errorCode, message);
+            throw new GradleException("Failed to upload artifact " + this.uploadFile.getName() + ". Error code '" + errorCode + "', message '" + message + "'.");
         }
     }
 
@@ -546,49 +895,94 @@ public class UploadArtifact {
     }
 
     /**
-     * Creates the upload metadata for the artifact.
+     * Creates the upload metadata for the artifact from the snapshot taken when it was prepared. This is intended for
+     * internal use only.
      *
      * @return The CurseForge uploaded metadata.
      */
-    private Metadata createMetadata() {
-
-        final Metadata request = new Metadata();
-        request.changelog = TaskPublishCurseForge.parseString(this.changelog);
-        request.changelogType = TaskPublishCurseForge.parseString(this.changelogType);
-        request.displayName = TaskPublishCurseForge.parseString(this.displayName);
-        request.releaseType = TaskPublishCurseForge.parseString(this.releaseType);
+    Metadata createMetadata() {
 
-        // Only set the relations if they actually exist. Curse doesn't like empty arrays here :upside_down:
-        if (!this.uploadRelations.getRelations().isEmpty()) {
-
-            request.relations = this.uploadRelations;
-        }
+        // Copies the numeric ID of the parent file to the request. This signals to the API that this is a child file.
+        // The curseFileId is null until the parent has been published.
+        return this.snapshot.toMetadata(this.parent != null ? this.parent.curseFileId : null);
+    }
 
-        // If the parent is null this is a parent artifact.
-        if (this.parent == null) {
+    /**
+     * Gets the resolved values of the artifact. This is intended for internal use only.
+     *
+     * @return The resolved values, or null if the artifact has not been prepared for upload.
+     */
+    @Nullable
+    @Internal
+    public ArtifactSnapshot getSnapshot() {
+        return this.snapshot;
+    }
 
-            // Only parent artifacts can define upload versions. The API gets upset if you give it an empty array or
-            // an array that matches the parent. Only a null value is accepted for child files.
-            request.gameVersions = this.uploadVersions;
-        }
+    @Nullable
+    public Long getCurseFileId() {
+        return curseFileId;
+    }
 
-        // If the parent is not null this is an additional file / child artifact.
-        if (this.parent != null) {
+    /**
+     * Gets the average throughput of the upload.
+     *
+     * @return The average throughput in bytes per second, or null if the file has not been uploaded.
+     */
+    @Nullable
+    @Internal
+    public Long getUploadThroughput() {
+        return this.uploadThroughput;
+    }
 
-            // Child files must not define a game version array. This is taken from the parent file and is handled by
-            // the API backend.
-            request.gameVersions = null;
+    /**
+     * Gets the time taken by the upload request.
+     *
+     * @return The time between sending the request and receiving the response in milliseconds, or null if the file
+     * has not been uploaded.
+     */
+    @Nullable
+    @Internal
+    public Long getUploadMillis() {
+        return this.uploadMillis;
+    }
 
-            // Copies the numeric ID of the parent file to the request. This signals to the API that this is a child
-            // file. The curseFileId is null until the parent has been published.
-            request.parentFileID = this.parent.curseFileId;
-        }
+    /**
+     * Checks if the upload was skipped because the file had already been published with the same contents and
+     * metadata.
+     *
+     * @return Whether the file ID was taken from the upload ledger.
+     */
+    @Internal
+    public boolean isReusedFromLedger() {
+        return this.reusedFromLedger;
+    }
 
-        return request;
+    /**
+     * Gets the name of the file being uploaded. This is intended for internal use only.
+     *
+     * @return The name of the file, or null if the artifact has not been prepared for upload.
+     */
+    @Nullable
+    @Internal
+    String getUploadFileName() {
+        return this.uploadFile != null ? this.uploadFile.getName() : null;
     }
 
+    /**
+     * Gets the parent of this artifact. This is intended for internal use only.
+     *
+     * @return The parent artifact, or null if this is a parent artifact.
+     */
     @Nullable
-    public Long getCurseFileId() {
-        return curseFileId;
+    @Internal
+    UploadArtifact getParent() {
+        return this.parent;
+    }
+
+    @Override
+    public String toString() {
+
+        final String fileName = this.uploadFile != null ? this.uploadFile.getName() : this.artifact.getAsPath();
+        return fileName + " (project " + this.projectId + ")";
     }
 }
\ No newline at end of file
@@ -0,0 +1,206 @@
+package net.darkhax.curseforgegradle;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.FileBody;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the files published by a task. The same file is often uploaded to several projects, so artifacts that point at
+ * the same path share one entry, and each file is validated once. Files are only hashed when the hash is needed, which
+ * is for the sharing of mapped memory and for the upload ledger.
+ * <p>
+ * The file contents are only shared when mapped uploads are enabled, which they are not by default. Each file is then
+ * mapped once and the mapped memory is used by every upload of the file, and files at different paths with the same
+ * contents share the mapped memory of the first one. This keeps the disk reads from growing with the number of projects
+ * a file is uploaded to. Otherwise every upload reads the file from disk again.
+ */
+public final class UploadFileStore {
+
+    /**
+     * Whether files are sent from mapped memory. When this is false every upload reads the file as a stream.
+     */
+    private final boolean mapFiles;
+
+    /**
+     * The files that have been requested, keyed by their normalized absolute path.
+     */
+    private final Map<Path, StoredFile> filesByPath = new ConcurrentHashMap<>();
+
+    /**
+     * The first loaded file for each content hash.
+     */
+    private final Map<String, StoredFile> filesByHash = new ConcurrentHashMap<>();
+
+    /**
+     * Users should not be constructing this themselves. Instances are created by the publish task.
+     *
+     * @param mapFiles Whether files are sent from mapped memory.
+     */
+    public UploadFileStore(boolean mapFiles) {
+
+        this.mapFiles = mapFiles;
+    }
+
+    /**
+     * Gets the entry for a file. The file is not read until {@link StoredFile#load()} is called.
+     *
+     * @param file The file.
+     * @return The shared entry for the file.
+     */
+    public StoredFile get(File file) {
+
+        return this.filesByPath.computeIfAbsent(file.toPath().toAbsolutePath().normalize(), StoredFile::new);
+    }
+
+    /**
+     * A file that is uploaded by one or more artifacts.
+     */
+    public final class StoredFile {
+
+        /**
+         * The normalized absolute path of the file.
+         */
+        private final Path path;
+
+        /**
+         * Whether the file has been validated and mapped.
+         */
+        private boolean loaded;
+
+        /**
+         * The SHA-256 hash of the file contents, or null if it has not been needed yet.
+         */
+        @Nullable
+        private String hash;
+
+        /**
+         * The mapped regions of the file, or null if the file is not mapped.
+         */
+        @Nullable
+        private List<ByteBuffer> regions;
+
+        private StoredFile(Path path) {
+
+            this.path = path;
+        }
+
+        /**
+         * Validates and maps the file if that has not happened yet. Mapped files are hashed straight away, so identical
+         * files can share their mapped memory. Other files are not read until they are uploaded.
+         *
+         * @throws FileNotFoundException This exception will be raised if the file does not exist.
+         * @throws IOException           This exception will be raised if the file could not be read.
+         */
+        public synchronized void load() throws IOException {
+
+            if (this.loaded) {
+
+                return;
+            }
+
+            if (!Files.isRegularFile(this.path)) {
+
+                throw new FileNotFoundException(this.path.toString());
+            }
+
+            this.regions = UploadFileStore.this.mapFiles ? MappedFileBody.map(this.path) : null;
+
+            if (this.regions != null) {
+
+                // Reuse the memory of an identical file that has already been mapped. The regions of this file are then
+                // released by the garbage collector.
+                final StoredFile sameContent = UploadFileStore.this.filesByHash.putIfAbsent(this.getHash(), this);
+
+                if (sameContent != null && sameContent.regions != null) {
+
+                    this.regions = sameContent.regions;
+                }
+            }
+
+            this.loaded = true;
+        }
+
+        /**
+         * Gets the hash of the file contents. The hash is computed the first time it is requested. Mapped files are
+         * hashed from the mapped memory, so the file is only read from disk once.
+         *
+         * @return The SHA-256 hash of the file contents.
+         * @throws IOException This exception will be raised if the file could not be read.
+         */
+        public synchronized String getHash() throws IOException {
+
+            if (this.hash == null) {
+
+                if (this.regions != null) {
+
+                    final Hasher hasher = Hashing.sha256().newHasher();
+                    this.regions.forEach(region -> hasher.putBytes(region.duplicate()));
+                    this.hash = hasher.hash().toString();
+                }
+
+                else {
+
+                    this.hash = com.google.common.io.Files.asByteSource(this.path.toFile()).hash(Hashing.sha256()).toString();
+                }
+            }
+
+            return this.hash;
+        }
+
+        /**
+         * Gets the normalized absolute path of the file.
+         *
+         * @return The path of the file.
+         */
+        Path getPath() {
+
+            return this.path;
+        }
+
+        /**
+         * Gets the mapped regions of the file. This is only available after {@link #load()}. The regions may be shared
+         * with other uploads, so they must be duplicated before they are read.
+         *
+         * @return The mapped regions of the file, or null if the file is not mapped.
+         */
+        @Nullable
+        synchronized List<ByteBuffer> getRegions() {
+
+            return this.regions;
+        }
+
+        /**
+         * Creates a new multipart body that sends the file. This is only available after {@link #load()}.
+         *
+         * @param fileName The file name sent to the server.
+         * @return A multipart body for the file.
+         */
+        public synchronized ContentBody createBody(String fileName) {
+
+            if (this.regions != null) {
+
+                return new MappedFileBody(this.path.toFile(), this.regions, ContentType.DEFAULT_BINARY, fileName);
+            }
+
+            if (UploadFileStore.this.mapFiles && MappedFileBody.CAN_MAP) {
+
+                return new MappedFileBody(this.path.toFile(), ContentType.DEFAULT_BINARY, fileName);
+            }
+
+            return new FileBody(this.path.toFile(), ContentType.DEFAULT_BINARY, fileName);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package net.darkhax.curseforgegradle;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+import net.darkhax.curseforgegradle.api.metadata.Metadata;
+import org.gradle.api.logging.Logger;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A persistent record of the files that have been published to CurseForge. Each entry is keyed by the API endpoint,
+ * the project ID, the hash of the file contents and the hash of the upload metadata. When a build is repeated after a
+ * partial failure the files that were already published are found in the ledger and are not uploaded again. Each entry
+ * is stored in its own file so that concurrent builds never need to coordinate. Entries are never removed by the
+ * plugin, deleting the {@code caches/curseforgegradle} directory of the Gradle user home clears the ledger.
+ */
+public final class UploadLedger {
+
+    /**
+     * The format version of the ledger. This is part of the ledger directory name and must be incremented whenever the
+     * layout of the ledger or the way keys are computed changes.
+     */
+    private static final int LEDGER_FORMAT = 1;
+
+    /**
+     * The directory that holds the ledger entries.
+     */
+    private final Path ledgerDir;
+
+    /**
+     * The logger of the task that uses the ledger.
+     */
+    private final Logger log;
+
+    /**
+     * Users should not be constructing this themselves. Instances are created by the publish task.
+     *
+     * @param gradleUserHome The Gradle user home directory. The ledger is stored in the caches directory of this folder.
+     * @param log            The logger of the task that uses the ledger.
+     */
+    public UploadLedger(File gradleUserHome, Logger log) {
+
+        this.ledgerDir = gradleUserHome.toPath().resolve("caches").resolve("curseforgegradle").resolve("ledger-v" + LEDGER_FORMAT);
+        this.log = log;
+    }
+
+    /**
+     * Creates the ledger key for an upload.
+     *
+     * @param endpoint  The endpoint the file is uploaded to.
+     * @param projectId The ID of the project the file is uploaded to.
+     * @param fileHash  The SHA-256 hash of the file being uploaded.
+     * @param metadata  The upload metadata. For additional files this includes the ID of the parent file.
+     * @return The ledger key for the upload.
+     */
+    public String createKey(String endpoint, long projectId, String fileHash, Metadata metadata) {
+
+        return Hashing.sha256().hashString(endpoint + "|" + projectId + "|" + fileHash + "|" + hashMetadata(metadata), StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Hashes upload metadata. Equal metadata always produces the same hash, even though the metadata holds values in
+     * unordered sets.
+     *
+     * @param metadata The upload metadata.
+     * @return The SHA-256 hash of the metadata.
+     */
+    public static String hashMetadata(Metadata metadata) {
+
+        return Hashing.sha256().hashString(canonicalize(Constants.GSON.toJsonTree(metadata)).toString(), StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Looks up the ID of a file that was previously published.
+     *
+     * @param key The ledger key of the upload.
+     * @return The ID of the published file, or null if the upload has not been recorded.
+     */
+    @Nullable
+    public Long find(String key) {
+
+        final Path entryFile = this.ledgerDir.resolve(key + ".json");
+
+        if (!Files.isRegularFile(entryFile)) {
+
+            return null;
+        }
+
+        try (Reader reader = Files.newBufferedReader(entryFile, StandardCharsets.UTF_8)) {
+
+            final Entry entry = Constants.GSON.fromJson(reader, Entry.class);
+            return entry != null ? entry.fileId : null;
+        }
+
+        catch (IOException | JsonParseException e) {
+
+            this.log.warn("Ignoring unreadable upload ledger entry {}.", entryFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Records a published file. Failing to record a file is not fatal, the file will simply be uploaded again if the
+     * build is repeated.
+     *
+     * @param key      The ledger key of the upload.
+     * @param fileId   The ID of the published file.
+     * @param fileName The name of the published file. This is only stored to make the ledger easier to debug.
+     */
+    public void record(String key, long fileId, String fileName) {
+
+        final Entry entry = new Entry();
+        entry.fileId = fileId;
+        entry.fileName = fileName;
+        entry.publishedAt = System.currentTimeMillis();
+
+        try {
+
+            Files.createDirectories(this.ledgerDir);
+            final Path tempFile = Files.createTempFile(this.ledgerDir, key, ".tmp");
+
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+
+                Constants.GSON.toJson(entry, writer);
+            }
+
+            Files.move(tempFile, this.ledgerDir.resolve(key + ".json"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        catch (IOException e) {
+
+            this.log.warn("Could not record published file {} in the upload ledger.", fileName, e);
+        }
+    }
+
+    /**
+     * Creates a copy of a JSON value where object properties and array elements are sorted. The metadata holds values
+     * in unordered sets, so this is required for equal metadata to always produce the same hash.
+     *
+     * @param element The value to canonicalize.
+     * @return The canonical copy of the value.
+     */
+    private static JsonElement canonicalize(JsonElement element) {
+
+        if (element.isJsonObject()) {
+
+            final Map<String, JsonElement> sorted = new TreeMap<>();
+
+            for (Map.Entry<String, JsonElement> property : element.getAsJsonObject().entrySet()) {
+
+                sorted.put(property.getKey(), canonicalize(property.getValue()));
+            }
+
+            final JsonObject object = new JsonObject();
+            sorted.forEach(object::add);
+            return object;
+        }
+
+        if (element.isJsonArray()) {
+
+            final List<JsonElement> elements = new ArrayList<>();
+
+            for (JsonElement child : element.getAsJsonArray()) {
+
+                elements.add(canonicalize(child));
+            }
+
+            elements.sort(Comparator.comparing(JsonElement::toString));
+
+            final JsonArray array = new JsonArray();
+            elements.forEach(array::add);
+            return array;
+        }
+
+        return element;
+    }
+
+    /**
+     * A POJO that represents a published file in the ledger.
+     */
+    private static final class Entry {
+
+        /**
+         * The ID of the published file.
+         */
+        @Expose
+        @SerializedName("fileId")
+        Long fileId;
+
+        /**
+         * The name of the published file.
+         */
+        @Expose
+        @SerializedName("fileName")
+        String fileName;
+
+        /**
+         * The time in milliseconds that the file was published.
+         */
+        @Expose
+        @SerializedName("publishedAt")
+        long publishedAt;
+    }
+}
@@ -0,0 +1,190 @@
+package net.darkhax.curseforgegradle;
+
+import org.gradle.api.logging.Logger;
+
+import javax.annotation.Nullable;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the bytes of an upload body as a transport sends them. The amount sent, the current throughput and the
+ * estimated time remaining are logged periodically while a large file is sent, so a slow upload can be told apart from
+ * a stalled one. The count restarts every time the body is sent, which happens when an upload is retried.
+ */
+final class UploadProgress {
+
+    /**
+     * The minimum time in nanoseconds between two progress updates. Each update is a line in the build output, so only
+     * uploads that take a while report their progress at all.
+     */
+    private static final long UPDATE_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * The name of the file being sent, used in the progress updates.
+     */
+    private final String fileName;
+
+    /**
+     * The length of the whole body in bytes, or a negative value if it is not known.
+     */
+    private final long contentLength;
+
+    /**
+     * The logger that receives the progress updates, or null if progress is only counted.
+     */
+    @Nullable
+    private final Logger log;
+
+    /**
+     * The number of bytes sent by the current or last attempt.
+     */
+    private volatile long bytesSent;
+
+    /**
+     * The time in nanoseconds that the current or last attempt started sending the body.
+     */
+    private volatile long startTime;
+
+    /**
+     * The time in nanoseconds that the last attempt finished sending the body, or 0 if it has not finished yet.
+     */
+    private volatile long endTime;
+
+    /**
+     * The time in nanoseconds of the last progress update.
+     */
+    private volatile long lastUpdate;
+
+    /**
+     * @param fileName      The name of the file being sent, used in the progress updates.
+     * @param contentLength The length of the whole body in bytes, or a negative value if it is not known.
+     * @param log           The logger that receives the progress updates, or null if progress is only counted.
+     */
+    UploadProgress(String fileName, long contentLength, @Nullable Logger log) {
+
+        this.fileName = fileName;
+        this.contentLength = contentLength;
+        this.log = log;
+    }
+
+    /**
+     * Restarts the count for a new attempt at sending the body.
+     */
+    void start() {
+
+        this.bytesSent = 0;
+        this.startTime = System.nanoTime();
+        this.endTime = 0;
+        this.lastUpdate = this.startTime;
+    }
+
+    /**
+     * Records sent bytes and logs the progress if enough time has passed since the last update. The bytes of a body are
+     * always sent by one thread at a time.
+     *
+     * @param count The number of bytes that were sent.
+     */
+    void onSent(long count) {
+
+        this.bytesSent += count;
+
+        final long now = System.nanoTime();
+
+        if (this.log != null && now - this.lastUpdate >= UPDATE_INTERVAL) {
+
+            this.lastUpdate = now;
+            this.log.lifecycle("Uploading {}: {}", this.fileName, this.describeProgress());
+        }
+    }
+
+    /**
+     * Records that the whole body has been sent.
+     */
+    void finish() {
+
+        this.endTime = System.nanoTime();
+
+        // The body has been sent, what follows is the API processing the file.
+        if (this.log != null) {
+
+            this.log.info("Sent {} of {} at {}/s, waiting for response.", formatBytes(this.bytesSent), this.fileName, formatBytes(this.getBytesPerSecond()));
+        }
+    }
+
+    /**
+     * Gets the number of bytes sent by the current or last attempt.
+     *
+     * @return The number of bytes sent.
+     */
+    long getBytesSent() {
+
+        return this.bytesSent;
+    }
+
+    /**
+     * Gets the time spent sending the body in the current or last attempt.
+     *
+     * @return The time spent sending the body in nanoseconds.
+     */
+    long getElapsedNanos() {
+
+        final long end = this.endTime != 0 ? this.endTime : System.nanoTime();
+        return end - this.startTime;
+    }
+
+    /**
+     * Gets the average throughput of the current or last attempt.
+     *
+     * @return The average throughput in bytes per second.
+     */
+    long getBytesPerSecond() {
+
+        return this.bytesSent * TimeUnit.SECONDS.toNanos(1) / Math.max(1, this.getElapsedNanos());
+    }
+
+    /**
+     * Creates the status text for the current progress.
+     *
+     * @return The status text, for example {@code 3.2 MB/45.1 MB (7%), 1.2 MB/s, 35s left}.
+     */
+    private String describeProgress() {
+
+        final long sent = this.bytesSent;
+        final long total = this.contentLength;
+        final long rate = this.getBytesPerSecond();
+
+        if (total <= 0) {
+
+            return formatBytes(sent) + ", " + formatBytes(rate) + "/s";
+        }
+
+        final StringBuilder status = new StringBuilder();
+        status.append(formatBytes(sent)).append('/').append(formatBytes(total));
+        status.append(" (").append(sent * 100 / total).append("%), ");
+        status.append(formatBytes(rate)).append("/s");
+
+        if (rate > 0) {
+
+            status.append(", ").append(Math.max(0, total - sent) / rate).append("s left");
+        }
+
+        return status.toString();
+    }
+
+    /**
+     * Formats an amount of bytes for display.
+     *
+     * @param bytes The amount of bytes.
+     * @return The formatted amount, for example {@code 1.5 MB}.
+     */
+    static String formatBytes(long bytes) {
+
+        if (bytes < 1024) {
+
+            return bytes + " B";
+        }
+
+        final int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format(Locale.ROOT, "%.1f %sB", bytes / (double) (1L << (unit * 10)), " KMGTPE".charAt(unit));
+    }
+}
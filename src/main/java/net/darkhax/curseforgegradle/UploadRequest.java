@@ -0,0 +1,86 @@
+package net.darkhax.curseforgegradle;
+
+import org.gradle.api.logging.Logger;
+
+import javax.annotation.Nullable;
+
+/**
+ * A multipart upload to be sent by an {@link HttpTransport}. Requests are immutable, so the same request is sent again
+ * when an upload is retried.
+ */
+public final class UploadRequest {
+
+    /**
+     * The URL to send the upload to.
+     */
+    private final String url;
+
+    /**
+     * The CurseForge API token used to authenticate the upload.
+     */
+    private final String token;
+
+    /**
+     * The upload metadata as JSON.
+     */
+    private final String metadata;
+
+    /**
+     * The file to upload.
+     */
+    private final UploadFileStore.StoredFile file;
+
+    /**
+     * The file name sent to the server.
+     */
+    private final String fileName;
+
+    /**
+     * The logger that receives progress updates while the file is sent, or null if progress is not reported.
+     */
+    @Nullable
+    private final Logger progressLog;
+
+    /**
+     * @param url         The URL to send the upload to.
+     * @param token       The CurseForge API token used to authenticate the upload.
+     * @param metadata    The upload metadata as JSON.
+     * @param file        The file to upload. This must have been loaded.
+     * @param fileName    The file name sent to the server.
+     * @param progressLog The logger that receives progress updates, or null if progress is not reported.
+     */
+    public UploadRequest(String url, String token, String metadata, UploadFileStore.StoredFile file, String fileName, @Nullable Logger progressLog) {
+
+        this.url = url;
+        this.token = token;
+        this.metadata = metadata;
+        this.file = file;
+        this.fileName = fileName;
+        this.progressLog = progressLog;
+    }
+
+    public String getUrl() {
+        return this.url;
+    }
+
+    public String getToken() {
+        return this.token;
+    }
+
+    public String getMetadata() {
+        return this.metadata;
+    }
+
+    public UploadFileStore.StoredFile getFile() {
+        return this.file;
+    }
+
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    @Nullable
+    public Logger getProgressLog() {
+        return this.progressLog;
+    }
+}
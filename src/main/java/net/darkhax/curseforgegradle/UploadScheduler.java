@@ -0,0 +1,265 @@
+package net.darkhax.curseforgegradle;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Prepares and uploads a set of artifacts using a bounded number of threads. Every artifact is prepared before any
+ * upload starts. Parent artifacts do not depend on each other and are uploaded in parallel. Child artifacts need the
+ * file ID of their parent, so each child is only started once its parent has been uploaded. Child artifacts of the
+ * same parent are uploaded in parallel with each other.
+ */
+final class UploadScheduler {
+
+    /**
+     * The logger of the task that owns the scheduler.
+     */
+    private final Logger log;
+
+    /**
+     * The maximum number of uploads that can happen at the same time.
+     */
+    private final int concurrency;
+
+    /**
+     * @param log         The logger of the task that owns the scheduler.
+     * @param concurrency The maximum number of uploads that can happen at the same time. Values lower than one are
+     *                    treated as one.
+     */
+    UploadScheduler(Logger log, int concurrency) {
+
+        this.log = log;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Prepares every artifact and child artifact in parallel. Nothing depends on a prepared artifact until it is
+     * uploaded, so this runs as a separate phase before any upload starts. A single invalid artifact then fails the
+     * task before any file has been published. This waits for every artifact to be prepared, so that all problems can
+     * be reported at once.
+     *
+     * @param artifacts The parent artifacts to prepare.
+     * @param problems  The problems found while preparing. Unexpected failures of the preparer are added to these.
+     * @param preparer  The action used to prepare a single artifact.
+     * @throws GradleException This exception will be raised if any problem was found.
+     */
+    void prepareAll(List<UploadArtifact> artifacts, ValidationProblems problems, Consumer<UploadArtifact> preparer) {
+
+        final ExecutorService executor = this.createExecutor("prepare");
+
+        try {
+
+            final Map<UploadArtifact, CompletableFuture<Void>> preparations = new LinkedHashMap<>();
+
+            for (UploadArtifact artifact : artifacts) {
+
+                preparations.put(artifact, CompletableFuture.runAsync(() -> preparer.accept(artifact), executor));
+
+                for (UploadArtifact child : artifact.getAdditionalArtifacts()) {
+
+                    preparations.put(child, CompletableFuture.runAsync(() -> preparer.accept(child), executor));
+                }
+            }
+
+            for (Map.Entry<UploadArtifact, CompletableFuture<Void>> preparation : awaitAll(preparations).entrySet()) {
+
+                if (preparation.getValue().isCompletedExceptionally()) {
+
+                    problems.add(preparation.getKey(), String.valueOf(getFailure(preparation.getValue()).getMessage()), null);
+                }
+            }
+
+            problems.throwIfAny(this.log, preparations.size());
+        }
+
+        finally {
+
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Uploads the artifacts and their children. This waits for every upload to finish, even when some of them fail, so
+     * that all failures can be reported at once.
+     *
+     * @param artifacts The parent artifacts to upload.
+     * @param uploader  The action used to upload a single artifact.
+     * @throws GradleException This exception will be raised if any artifact failed to upload.
+     */
+    void uploadAll(List<UploadArtifact> artifacts, Consumer<UploadArtifact> uploader) {
+
+        final ExecutorService executor = this.createExecutor("upload");
+
+        try {
+
+            final Map<UploadArtifact, CompletableFuture<Void>> uploads = new LinkedHashMap<>();
+
+            for (UploadArtifact artifact : artifacts) {
+
+                final CompletableFuture<Void> parentUpload = CompletableFuture.runAsync(() -> uploader.accept(artifact), executor);
+                uploads.put(artifact, parentUpload);
+
+                for (UploadArtifact child : artifact.getAdditionalArtifacts()) {
+
+                    uploads.put(child, parentUpload.thenRunAsync(() -> uploader.accept(child), executor));
+                }
+            }
+
+            this.reportFailures(uploads);
+        }
+
+        finally {
+
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Uploads the artifacts and their children using uploads that do not block a thread while they are sent. Every
+     * parent artifact is started right away, and each child is started as soon as its parent has been uploaded. How
+     * many uploads are sent at the same time is up to the uploader. This waits for every upload to finish, even when
+     * some of them fail, so that all failures can be reported at once.
+     *
+     * @param artifacts The parent artifacts to upload.
+     * @param uploader  The action used to start the upload of a single artifact.
+     * @throws GradleException This exception will be raised if any artifact failed to upload.
+     */
+    void uploadAllAsync(List<UploadArtifact> artifacts, Function<UploadArtifact, CompletableFuture<Void>> uploader) {
+
+        final Map<UploadArtifact, CompletableFuture<Void>> uploads = new LinkedHashMap<>();
+
+        for (UploadArtifact artifact : artifacts) {
+
+            final CompletableFuture<Void> parentUpload = startAsync(artifact, uploader);
+            uploads.put(artifact, parentUpload);
+
+            for (UploadArtifact child : artifact.getAdditionalArtifacts()) {
+
+                uploads.put(child, parentUpload.thenCompose(parentResult -> startAsync(child, uploader)));
+            }
+        }
+
+        this.reportFailures(uploads);
+    }
+
+    /**
+     * Waits for every upload to finish and reports the ones that failed.
+     *
+     * @param uploads The uploads, keyed by the artifact being uploaded.
+     * @throws GradleException This exception will be raised if any artifact failed to upload.
+     */
+    private void reportFailures(Map<UploadArtifact, CompletableFuture<Void>> uploads) {
+
+        final List<String> failures = new ArrayList<>();
+
+        for (Map.Entry<UploadArtifact, CompletableFuture<Void>> upload : awaitAll(uploads).entrySet()) {
+
+            if (upload.getValue().isCompletedExceptionally()) {
+
+                final UploadArtifact artifact = upload.getKey();
+                final UploadArtifact parent = artifact.getParent();
+
+                if (parent != null && uploads.get(parent).isCompletedExceptionally()) {
+
+                    this.log.error("Skipped artifact {} because its parent artifact {} failed to upload.", artifact, parent);
+                    failures.add(artifact + ": skipped, parent failed");
+                }
+
+                else {
+
+                    final Throwable cause = getFailure(upload.getValue());
+                    this.log.error("Failed to upload artifact {}. {}", artifact, cause.getMessage());
+                    failures.add(artifact + ": " + cause.getMessage());
+                }
+            }
+        }
+
+        if (!failures.isEmpty()) {
+
+            throw new GradleException("Failed to upload " + failures.size() + " of " + uploads.size() + " artifacts.\n - " + String.join("\n - ", failures));
+        }
+    }
+
+    /**
+     * Starts an asynchronous upload. An uploader that fails before returning a future is treated as a failed upload.
+     *
+     * @param artifact The artifact to upload.
+     * @param uploader The action used to start the upload.
+     * @return The future of the upload.
+     */
+    private static CompletableFuture<Void> startAsync(UploadArtifact artifact, Function<UploadArtifact, CompletableFuture<Void>> uploader) {
+
+        try {
+
+            return uploader.apply(artifact);
+        }
+
+        catch (RuntimeException e) {
+
+            final CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * Creates the bounded thread pool used by a phase.
+     *
+     * @param phase The name of the phase, used in thread names.
+     * @return A new thread pool.
+     */
+    private ExecutorService createExecutor(String phase) {
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(this.concurrency, runnable -> {
+
+            final Thread thread = new Thread(runnable, "CurseForgeGradle " + phase + " " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Waits for every task to finish, whether it succeeded or not.
+     *
+     * @param tasks The tasks to wait for.
+     * @return The same tasks, once they have all finished.
+     */
+    private static Map<UploadArtifact, CompletableFuture<Void>> awaitAll(Map<UploadArtifact, CompletableFuture<Void>> tasks) {
+
+        CompletableFuture.allOf(tasks.values().toArray(new CompletableFuture<?>[0])).handle((result, error) -> null).join();
+        return tasks;
+    }
+
+    /**
+     * Gets the exception that caused an upload to fail.
+     *
+     * @param upload The failed upload.
+     * @return The exception raised by the upload.
+     */
+    private static Throwable getFailure(CompletableFuture<Void> upload) {
+
+        try {
+
+            upload.join();
+            throw new IllegalStateException("Upload did not fail.");
+        }
+
+        catch (CompletionException e) {
+
+            return e.getCause() != null ? e.getCause() : e;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package net.darkhax.curseforgegradle;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the problems found while preparing the artifacts of a publish task. Preparing an artifact does not stop at
+ * the first problem, so a misconfigured build reports everything that needs to be fixed in a single run. The problems
+ * are grouped by artifact in the final report. This is safe to use from several threads.
+ */
+public final class ValidationProblems {
+
+    /**
+     * The problems found so far, grouped by the artifact they belong to.
+     */
+    private final Map<String, List<Problem>> problemsByArtifact = new LinkedHashMap<>();
+
+    /**
+     * Records a problem.
+     *
+     * @param artifact The artifact the problem belongs to.
+     * @param message  A description of the problem.
+     * @param solution A suggestion for fixing the problem, or null if there is no useful suggestion.
+     */
+    public synchronized void add(UploadArtifact artifact, String message, @Nullable String solution) {
+
+        this.problemsByArtifact.computeIfAbsent(artifact.toString(), key -> new ArrayList<>()).add(new Problem(message, solution));
+    }
+
+    /**
+     * Checks if any problem has been recorded.
+     *
+     * @return If any problem has been recorded.
+     */
+    public synchronized boolean hasProblems() {
+
+        return !this.problemsByArtifact.isEmpty();
+    }
+
+    /**
+     * Raises a single exception that describes every recorded problem. Nothing happens if no problem was recorded.
+     *
+     * @param log   The logger used to report each problem.
+     * @param total The number of artifacts that were validated.
+     * @throws GradleException This exception will be raised if any problem was recorded.
+     */
+    public synchronized void throwIfAny(Logger log, int total) {
+
+        if (this.problemsByArtifact.isEmpty()) {
+
+            return;
+        }
+
+        int count = 0;
+        final StringBuilder report = new StringBuilder();
+
+        for (Map.Entry<String, List<Problem>> artifact : this.problemsByArtifact.entrySet()) {
+
+            report.append("\n  ").append(artifact.getKey()).append(':');
+
+            for (Problem problem : artifact.getValue()) {
+
+                count++;
+                log.error("Artifact {} is not valid. {}", artifact.getKey(), problem.message);
+                report.append("\n   - ").append(problem.message);
+
+                if (problem.solution != null) {
+
+                    report.append("\n     ").append(problem.solution);
+                }
+            }
+        }
+
+        throw new GradleException("Found " + count + " problem(s) in " + this.problemsByArtifact.size() + " of " + total + " artifacts. No files were uploaded." + report);
+    }
+
+    /**
+     * A single problem found during validation.
+     */
+    private static final class Problem {
+
+        /**
+         * A description of the problem.
+         */
+        private final String message;
+
+        /**
+         * A suggestion for fixing the problem, or null if there is no useful suggestion.
+         */
+        @Nullable
+        private final String solution;
+
+        private Problem(String message, @Nullable String solution) {
+
+            this.message = message;
+            this.solution = solution;
+        }
+    }
+}
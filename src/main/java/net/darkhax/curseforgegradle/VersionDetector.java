@@ -4,14 +4,17 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import net.darkhax.curseforgegradle.api.versions.GameVersions;
 import org.apache.groovy.util.Maps;
-import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
 
 import java.util.*;
 
+import org.gradle.api.plugins.ExtensionContainer;
+import org.gradle.api.plugins.ExtraPropertiesExtension;
 import org.gradle.api.plugins.JavaPluginExtension;
+import org.gradle.api.plugins.PluginContainer;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
+import org.gradle.api.provider.ProviderFactory;
 import org.gradle.jvm.toolchain.JavaLanguageVersion;
 
 /**
@@ -71,41 +74,41 @@ public final class VersionDetector {
      * The version detector should not be constructed manually. It is automatically constructed when the CurseForge
      * publish task is defined. Each task will have its own instance of the version detector.
      *
-     * @param project The project associated with this version detector. This is primarily used to check applied plugins
-     *                and build properties.
-     * @param log     The log output for debug information. This is taken from the task that owns this instance.
+     * @param plugins    The plugins of the project that defined the task. This is used to detect mod loaders.
+     * @param extensions The extensions of the project that defined the task. This is used to read extra properties and
+     *                   the Java toolchain.
+     * @param providers  The provider factory used to read Gradle properties.
+     * @param log        The log output for debug information. This is taken from the task that owns this instance.
      */
-    VersionDetector(Project project, Logger log) {
+    VersionDetector(PluginContainer plugins, ExtensionContainer extensions, ProviderFactory providers, Logger log) {
         this.log = log;
 
         //This operates as a lazy detection mechanism.
         //withId either executes immediately if the plugin is already applied or when the plugin is applied.
         //We then read the detected versions during task execution.
         WELL_KNOWN_PLUGINS.forEach((pluginName, version) -> {
-            project.getPlugins().withId(pluginName, plugin -> {
+            plugins.withId(pluginName, plugin -> {
                 detectedPluginVersions.put(pluginName, version);
             });
         });
 
         //This operates as a lazy detection mechanism.
         //We then read the detected versions during task execution.
+        final ExtraPropertiesExtension extraProperties = extensions.getExtraProperties();
         WELL_KNOWN_PROPERTIES.forEach(propertyName -> {
-            //This is a bit of a weird way to do it, but it is the only way to get the property value lazily.
-            //We can't just use project.findProperty because it will throw an exception if the property is not found.
-            //And we can not call it during task execution as we are not allowed to use or store the project.
-            //So the best alternative is to use a provider that will lazily evaluate the property.
-            //And if it is not currently registered on task creation, we use a gradle property provider instead.
-            Provider<String> propertyProvider = project.hasProperty(propertyName) ?
-                    project.provider(() -> TaskPublishCurseForge.parseString(project.findProperty(propertyName))) :
-                    project.getProviders().gradleProperty(propertyName);
-
-            propertyProvider = propertyProvider.orElse("");
+            //Gradle properties are read through the provider factory so the configuration cache tracks them. Extra
+            //properties can still be defined after the task is created, so they are looked up lazily. Only the extra
+            //properties are captured here, never the project, and the provider is resolved before the configuration
+            //cache entry is stored.
+            final Provider<String> propertyProvider = providers.gradleProperty(propertyName)
+                    .orElse(providers.provider(() -> extraProperties.has(propertyName) ? TaskPublishCurseForge.parseString(extraProperties.get(propertyName)) : null))
+                    .orElse("");
 
             detectedProperties.put(propertyName, propertyProvider);
         });
 
         //Now we detect the java version from the java toolchain.
-        JavaPluginExtension extension = project.getExtensions().findByType(JavaPluginExtension.class);
+        JavaPluginExtension extension = extensions.findByType(JavaPluginExtension.class);
 
         if (extension !=  null) {
             //We use a lazy resolve here as the java toolchain is not always available.
@@ -155,6 +158,30 @@ public final class VersionDetector {
         return ImmutableList.copyOf(this.detectedVersions);
     }
 
+    /**
+     * Gets every value that could be detected as a game version, without checking if the values are valid for the
+     * current game. This is used to track the detection as an input of the task.
+     *
+     * @return The sorted values that could be detected, or an empty set if detection is disabled.
+     */
+    public SortedSet<String> getCandidateVersions() {
+
+        final SortedSet<String> candidates = new TreeSet<>();
+
+        if (isEnabled) {
+
+            candidates.addAll(this.detectedPluginVersions.values());
+            this.detectedProperties.values().forEach(provider -> {
+                final String propertyValue = provider.get();
+                if (!propertyValue.isEmpty()) {
+                    candidates.add(propertyValue);
+                }
+            });
+        }
+
+        return candidates;
+    }
+
     /**
      * Adds a version as detected if it is a valid version for the current game.
      *
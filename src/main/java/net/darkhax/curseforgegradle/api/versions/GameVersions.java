@@ -1,23 +1,36 @@
 package net.darkhax.curseforgegradle.api.versions;
 
+import com.google.common.io.CharStreams;
 import com.google.gson.JsonParseException;
-import net.darkhax.curseforgegradle.Constants;
 import net.darkhax.curseforgegradle.CurseForgeGradlePlugin;
+import net.darkhax.curseforgegradle.HttpTransport;
+import net.darkhax.curseforgegradle.RetryPolicy;
 import net.darkhax.curseforgegradle.versionTypes.VersionTypeProvider;
 import org.gradle.api.GradleException;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Instances of this class are used to query the CurseForge API for valid game versions. Each instance represents a
- * specific game API and is specific to the project and task that instantiated it.
+ * specific game API. Once refreshed an instance is only read from, which allows it to be shared by several publish
+ * tasks through the {@link net.darkhax.curseforgegradle.CurseForgeBuildService}.
  */
 public final class GameVersions {
 
@@ -41,6 +54,28 @@ public final class GameVersions {
      */
     private final Set<VersionTypeProvider> versionTypeProviders;
 
+    /**
+     * An optional on-disk cache for the API responses. When this is null every refresh will request the full catalog
+     * from the API.
+     */
+    @Nullable
+    private final VersionCache cache;
+
+    /**
+     * The transport used to request data from the API.
+     */
+    private final HttpTransport transport;
+
+    /**
+     * The policy used to retry requests that failed for a temporary reason.
+     */
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * Runs the request for the versions endpoint while the version types are being fetched on the calling thread.
+     */
+    private final Executor executor;
+
     /**
      * A set of version IDs that are considered valid for this type of project.
      */
@@ -57,29 +92,65 @@ public final class GameVersions {
     private final Map<String, Version> versionsBySlug = new HashMap<>();
 
     /**
-     * Users should not be constructing this themselves. Each instance of this class should be unique to the task that
-     * spawned it.
+     * Users should not be constructing this themselves. Instances are created and shared by the
+     * {@link net.darkhax.curseforgegradle.CurseForgeBuildService}.
      *
-     * @param endpoint    The base URL for the API.
-     * @param projectName The name of the project uploading a file. This is used for debug logging.
-     * @param taskName    The name of the task uploading a file. This is used for debug logging.
+     * @param endpoint             The base URL for the API.
+     * @param taskPath             The path of the task uploading a file. This is used for debug logging.
+     * @param versionTypeProviders The providers used to determine which version types are valid.
+     * @param cache                An optional cache for the API responses.
+     * @param transport            The transport used to request data from the API.
+     * @param retryPolicy          The policy used to retry requests that failed for a temporary reason.
+     * @param executor             Runs the request for the versions endpoint while the version types are fetched.
      */
-    public GameVersions(String endpoint, String projectName, String taskName, Set<VersionTypeProvider> versionTypeProviders) {
+    public GameVersions(String endpoint, String taskPath, Set<VersionTypeProvider> versionTypeProviders, @Nullable VersionCache cache, HttpTransport transport, RetryPolicy retryPolicy, Executor executor) {
         this.versionsEndpoint = endpoint + "/api/game/versions";
         this.versionTypesEndpoint = endpoint + "/api/game/version-types";
         this.versionTypeProviders = versionTypeProviders;
-        this.log = Logging.getLogger("CurseForgeGradle/Versions/" + projectName + "/" + taskName);
+        this.cache = cache;
+        this.transport = transport;
+        this.retryPolicy = retryPolicy;
+        this.executor = executor;
+        this.log = Logging.getLogger("CurseForgeGradle/Versions" + taskPath.replace(':', '/'));
     }
 
     /**
-     * Discards the current version data and refreshes it with new data from the API.
+     * Discards the current version data and refreshes it with new data from the API. Both endpoints are requested at
+     * the same time, but the versions are only read once the version types have been resolved so they can be filtered
+     * while they are read. The versions response is stored before the version types are requested, see
+     * {@link #fetchStored(String, String)}.
      *
      * @param apiToken The CurseForge API token required to retrieve game version data.
      */
     public void refresh(String apiToken) {
 
-        this.fetchValidVersionTypes(apiToken);
-        this.fetchVersions(apiToken);
+        log.debug("Fetching game versions from {}.", versionsEndpoint);
+        final CompletableFuture<Reader> versionsResponse = CompletableFuture.supplyAsync(() -> {
+
+            try {
+
+                return this.fetchStored(versionsEndpoint, apiToken);
+            }
+
+            catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+            }
+        }, this.executor);
+
+        try {
+
+            this.fetchValidVersionTypes(apiToken);
+        }
+
+        catch (RuntimeException e) {
+
+            // Release the versions response once it arrives, it will not be read.
+            versionsResponse.thenAccept(GameVersions::closeQuietly);
+            throw e;
+        }
+
+        this.fetchVersions(versionsResponse);
     }
 
     /**
@@ -93,81 +164,192 @@ public final class GameVersions {
         this.validVersionTypes.clear();
 
         log.debug("Fetching game version types from {}.", versionTypesEndpoint);
-        try (Reader versionReader = CurseForgeGradlePlugin.fetch(versionTypesEndpoint, apiToken)) {
+        try (Reader versionReader = this.fetch(versionTypesEndpoint, apiToken)) {
 
-            final String response = CurseForgeGradlePlugin.readString(versionReader);
+            final VersionType[] versionTypes = VersionCatalogReader.readVersionTypes(versionReader);
 
-            try {
-                final VersionType[] versionTypes = Constants.GSON.fromJson(response, VersionType[].class);
-
-                for (VersionTypeProvider provider : versionTypeProviders) {
-                    this.validVersionTypes.addAll(provider.getValidVersionTypes(versionTypes));
-                }
+            for (VersionTypeProvider provider : versionTypeProviders) {
+                this.validVersionTypes.addAll(provider.getValidVersionTypes(versionTypes));
             }
-            catch (JsonParseException jsonException) {
-                log.error("Unexpected response from CurseForge API! " + response);
-                throw new GradleException("Unexpected response from CurseForge API. Response '" + response + "'.", jsonException);
+        }
+
+        catch (JsonParseException | IllegalStateException jsonException) {
+
+            if (!isAbandoned()) {
+
+                log.error("Unexpected response from CurseForge API! {}", jsonException.getMessage());
             }
+
+            throw new GradleException("Unexpected response from CurseForge API. " + jsonException.getMessage(), jsonException);
         }
 
         catch (IOException e) {
 
-            log.error("Failed to fetch game version types!", e);
+            if (!isAbandoned()) {
+
+                log.error("Failed to fetch game version types!", e);
+            }
+
             throw new GradleException("Failed to fetch game versions!", e);
         }
     }
 
     /**
      * Discards the current game versions data and refreshes it with new data from the API. Only game versions with a
-     * valid type as determined by {@link #validVersionTypes} will be included. The fetched data will be held in the
+     * valid type as determined by {@link #validVersionTypes} will be included. The response is filtered while it is
+     * read, so no objects are created for versions of other types. The fetched data will be held in the
      * {@link #versionsByName} and {@link #versionsBySlug} maps.
      *
-     * @param apiToken The CurseForge API token required to retrieve game version data.
+     * @param response The pending response of the versions endpoint.
      */
-    private void fetchVersions(String apiToken) {
+    private void fetchVersions(CompletableFuture<Reader> response) {
 
         this.versionsByName.clear();
         this.versionsBySlug.clear();
 
-        log.debug("Fetching game versions from {}.", versionsEndpoint);
-        try (Reader versionReader = CurseForgeGradlePlugin.fetch(versionsEndpoint, apiToken)) {
+        try (Reader versionReader = awaitResponse(response)) {
 
-            final Version[] versions = Constants.GSON.fromJson(versionReader, Version[].class);
+            VersionCatalogReader.readVersions(versionReader, this.validVersionTypes, version -> {
 
-            for (final Version version : versions) {
+                versionsByName.compute(version.getName(), (name, existing) -> {
 
-                if (this.validVersionTypes.contains(version.getGameVersionTypeID())) {
+                    if (existing != null) {
+                        log.warn("Version name {} was already present. Former ID {}. New ID {}.", version.getName(), existing.getId(), version.getId());
+                    }
 
-                    versionsByName.compute(version.getName(), (name, existing) -> {
+                    return version;
+                });
 
-                        if (existing != null) {
-                            log.warn("Version name {} was already present. Former ID {}. New ID {}.", version.getName(), existing.getId(), version.getId());
-                        }
+                versionsBySlug.compute(version.getSlug(), (slug, existing) -> {
 
-                        return version;
-                    });
+                    if (existing != null) {
+                        log.warn("Version slug {} was already present. Former ID {}. New ID {}.", version.getSlug(), existing.getId(), version.getId());
+                    }
 
-                    versionsBySlug.compute(version.getSlug(), (slug, existing) -> {
+                    return version;
+                });
 
-                        if (existing != null) {
-                            log.warn("Version slug {} was already present. Former ID {}. New ID {}.", version.getSlug(), existing.getId(), version.getId());
-                        }
+                log.debug("Received game version {} with id {}.", version.getName(), version.getId());
+            });
+        }
 
-                        return version;
-                    });
-                }
+        catch (JsonParseException | IllegalStateException jsonException) {
 
-                log.debug("Received game version {} with id {}.", version.getName(), version.getId());
+            if (!isAbandoned()) {
+
+                log.error("Unexpected response from CurseForge API! {}", jsonException.getMessage());
             }
+
+            throw new GradleException("Unexpected response from CurseForge API. " + jsonException.getMessage(), jsonException);
         }
 
         catch (IOException e) {
 
-            log.error("Failed to fetch game versions!", e);
+            if (!isAbandoned()) {
+
+                log.error("Failed to fetch game versions!", e);
+            }
+
             throw new GradleException("Failed to fetch game versions!", e);
         }
     }
 
+    /**
+     * Creates a reader for an API endpoint. The response is taken from the {@link #cache} when one is available. Requests
+     * that fail for a temporary reason are retried according to the {@link #retryPolicy}.
+     *
+     * @param url      The URL of the endpoint.
+     * @param apiToken The CurseForge API token required to retrieve game version data.
+     * @return A reader for the response body.
+     * @throws IOException This exception will be raised if the response could not be read.
+     */
+    private Reader fetch(String url, String apiToken) throws IOException {
+
+        if (this.cache != null) {
+
+            return this.cache.fetch(this.transport, this.retryPolicy, url, apiToken);
+        }
+
+        return this.retryPolicy.execute(this.log, "Request to " + url, () -> CurseForgeGradlePlugin.fetch(this.transport, url, apiToken));
+    }
+
+    /**
+     * Creates a reader for an API endpoint that does not hold on to a connection. A cached response is already stored
+     * on disk. Otherwise the response is read into memory and its connection is released, so the transport can reuse
+     * it for the other endpoint even when its pool only holds a single connection.
+     *
+     * @param url      The URL of the endpoint.
+     * @param apiToken The CurseForge API token required to retrieve game version data.
+     * @return A reader for the response body.
+     * @throws IOException This exception will be raised if the response could not be read.
+     */
+    private Reader fetchStored(String url, String apiToken) throws IOException {
+
+        if (this.cache != null) {
+
+            return this.fetch(url, apiToken);
+        }
+
+        try (Reader response = this.fetch(url, apiToken)) {
+
+            return new StringReader(CharStreams.toString(response));
+        }
+    }
+
+    /**
+     * Waits for a pending response to arrive.
+     *
+     * @param response The pending response.
+     * @return A reader for the response body.
+     * @throws IOException This exception will be raised if the response could not be read.
+     */
+    private static Reader awaitResponse(CompletableFuture<Reader> response) throws IOException {
+
+        try {
+
+            return response.join();
+        }
+
+        catch (CompletionException e) {
+
+            if (e.getCause() instanceof UncheckedIOException) {
+
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Checks if the current fetch has been abandoned. The build service interrupts fetches that are still running when
+     * it is closed, and their failure is not reported since nothing will read the result.
+     *
+     * @return Whether the fetch has been abandoned.
+     */
+    private static boolean isAbandoned() {
+
+        return Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Closes a response that will not be read.
+     *
+     * @param reader The response to close.
+     */
+    private static void closeQuietly(Reader reader) {
+
+        try {
+
+            reader.close();
+        }
+
+        catch (IOException e) {
+
+            // The response was never going to be used.
+        }
+    }
+
     /**
      * Gets a Version by it's name or slug. The version name takes priority over the version slug when matching. Matches
      * made by this method are case sensitive!
@@ -192,14 +374,36 @@ public final class GameVersions {
     }
 
     /**
-     * Resolves a set of version names/slugs into their CurseForge API Ids. If a given version candidate is not valid an
-     * exception will be raised.
+     * Resolves a set of version names/slugs into their CurseForge API Ids. If any version candidate is not valid an
+     * exception listing every invalid candidate will be raised.
      *
      * @param toResolve The set of version names and slugs to resolve.
      * @return A set of CurseForge API Ids for the valid version candidates.
      */
     public Set<Long> resolveVersions(Set<String> toResolve) {
 
+        final List<String> invalidVersions = new ArrayList<>();
+        final Set<Long> validVersions = this.resolveVersions(toResolve, invalidVersions);
+
+        if (!invalidVersions.isEmpty()) {
+
+            throw new GradleException("Versions " + String.join(", ", invalidVersions) + " are not valid for this game!");
+        }
+
+        return validVersions;
+    }
+
+    /**
+     * Resolves a set of version names/slugs into their CurseForge API Ids. Version candidates that are not valid are
+     * added to the given collection instead of raising an exception, so every invalid candidate can be reported at
+     * once.
+     *
+     * @param toResolve       The set of version names and slugs to resolve.
+     * @param invalidVersions The collection that receives the version candidates that are not valid.
+     * @return A set of CurseForge API Ids for the valid version candidates.
+     */
+    public Set<Long> resolveVersions(Set<String> toResolve, Collection<String> invalidVersions) {
+
         final Set<Long> validVersions = new HashSet<>();
 
         for (String versionCandidate : toResolve) {
@@ -209,7 +413,7 @@ public final class GameVersions {
             if (resolved == null) {
 
                 log.error("Version {} is not valid for this game!", versionCandidate);
-                throw new GradleException("Version " + versionCandidate + " is not valid for this game!");
+                invalidVersions.add(versionCandidate);
             }
 
             else {
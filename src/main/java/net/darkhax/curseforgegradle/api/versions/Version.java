@@ -31,6 +31,29 @@ public class Version {
     @Expose
     private String name;
 
+    /**
+     * Used by GSON when deserializing a version.
+     */
+    private Version() {
+
+    }
+
+    /**
+     * Creates a version from values read from the API.
+     *
+     * @param id                The internal version ID.
+     * @param gameVersionTypeID The type of version ID.
+     * @param slug              The slug for this version.
+     * @param name              The name of the version.
+     */
+    Version(long id, long gameVersionTypeID, String slug, String name) {
+
+        this.id = id;
+        this.gameVersionTypeID = gameVersionTypeID;
+        this.slug = slug;
+        this.name = name;
+    }
+
     /**
      * Gets the internal CurseForge version ID.
      *
@@ -0,0 +1,300 @@
+package net.darkhax.curseforgegradle.api.versions;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+import net.darkhax.curseforgegradle.Constants;
+import net.darkhax.curseforgegradle.CurseForgeGradlePlugin;
+import net.darkhax.curseforgegradle.HttpTransport;
+import net.darkhax.curseforgegradle.RetryPolicy;
+import net.darkhax.curseforgegradle.TransportResponse;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A persistent on-disk cache for the game version catalog endpoints. Each endpoint URL is stored as two files, the raw
+ * response body and a small JSON file holding the validators sent by the server. Both are written to temporary files
+ * and moved into place, and the validators are written last, so an entry is only found once its body is complete.
+ * Entries younger than the configured time to live are used without touching the network. Older entries are
+ * revalidated using the ETag and Last-Modified values from the previous response, and a stale entry will be used as a
+ * fallback when the API can not be reached.
+ */
+public final class VersionCache {
+
+    /**
+     * The format version of the cache. This is part of the cache directory name and must be incremented whenever the
+     * layout of the cached files changes.
+     */
+    private static final int CACHE_FORMAT = 1;
+
+    /**
+     * The status code sent when a cached response is still current.
+     */
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    /**
+     * An internal logger shared by all cache instances.
+     */
+    private static final Logger LOG = Logging.getLogger("CurseForgeGradle/VersionCache");
+
+    /**
+     * The directory that holds the cached responses.
+     */
+    private final Path cacheDir;
+
+    /**
+     * The amount of time in milliseconds that a cached response is considered fresh.
+     */
+    private final long ttlMillis;
+
+    /**
+     * Users should not be constructing this themselves. Instances are created by the publish task.
+     *
+     * @param gradleUserHome The Gradle user home directory. The cache is stored in the caches directory of this folder.
+     * @param ttlSeconds     The amount of time in seconds that a cached response can be used without revalidating it.
+     */
+    public VersionCache(File gradleUserHome, long ttlSeconds) {
+
+        this.cacheDir = gradleUserHome.toPath().resolve("caches").resolve("curseforgegradle").resolve("versions-v" + CACHE_FORMAT);
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(Math.max(0, ttlSeconds));
+    }
+
+    /**
+     * Creates a reader for the response of an endpoint. The cached response is used when it is still fresh, otherwise
+     * the endpoint is requested again using the validators of the cached response.
+     *
+     * @param transport   The transport used to request the endpoint.
+     * @param retryPolicy The policy used to retry requests that failed for a temporary reason.
+     * @param urlString   The URL of the endpoint.
+     * @param token       An optional API token.
+     * @return A reader for the response body.
+     * @throws IOException This exception will be raised if the endpoint could not be read and no cached response is
+     *                     available.
+     */
+    public Reader fetch(HttpTransport transport, RetryPolicy retryPolicy, String urlString, @Nullable String token) throws IOException {
+
+        final String key = Hashing.sha256().hashString(urlString, StandardCharsets.UTF_8).toString();
+        final Path bodyFile = this.cacheDir.resolve(key + ".json");
+        final Path entryFile = this.cacheDir.resolve(key + ".meta.json");
+        final CacheEntry entry = readEntry(bodyFile, entryFile);
+
+        if (entry != null && System.currentTimeMillis() - entry.fetchedAt < this.ttlMillis) {
+
+            LOG.debug("Using cached response for {}.", urlString);
+            return Files.newBufferedReader(bodyFile, StandardCharsets.UTF_8);
+        }
+
+        final Map<String, String> headers = CurseForgeGradlePlugin.createHeaders(token);
+
+        if (entry != null) {
+
+            if (entry.etag != null) {
+
+                headers.put("If-None-Match", entry.etag);
+            }
+
+            if (entry.lastModified != null) {
+
+                headers.put("If-Modified-Since", entry.lastModified);
+            }
+        }
+
+        try {
+
+            final TransportResponse response = retryPolicy.execute(LOG, "Request to " + urlString, () -> {
+
+                final TransportResponse attempt = transport.get(urlString, headers);
+
+                if (attempt.getStatusCode() != HTTP_NOT_MODIFIED) {
+
+                    CurseForgeGradlePlugin.requireSuccess(attempt, urlString);
+                }
+
+                return attempt;
+            });
+
+            // The server confirmed that the cached response is still current.
+            if (entry != null && response.getStatusCode() == HTTP_NOT_MODIFIED) {
+
+                response.close();
+                LOG.debug("Cached response for {} is still valid.", urlString);
+                entry.fetchedAt = System.currentTimeMillis();
+                writeEntry(entryFile, entry);
+                return Files.newBufferedReader(bodyFile, StandardCharsets.UTF_8);
+            }
+
+            CurseForgeGradlePlugin.requireSuccess(response, urlString);
+            Files.createDirectories(this.cacheDir);
+
+            // The body is written to a temporary file first so concurrent builds never observe a partial response.
+            final Path tempFile = Files.createTempFile(this.cacheDir, key, ".tmp");
+
+            try (InputStream input = response.getBody()) {
+
+                Files.copy(input, tempFile, StandardCopyOption.REPLACE_EXISTING);
+
+                // The old validators do not describe the new body. They are removed before the body is replaced, so a
+                // build that stops before the new entry is written finds no entry and requests the endpoint again.
+                Files.deleteIfExists(entryFile);
+                Files.move(tempFile, bodyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            finally {
+
+                Files.deleteIfExists(tempFile);
+            }
+
+            final CacheEntry updated = new CacheEntry();
+            updated.url = urlString;
+            updated.etag = response.getHeader("ETag");
+            updated.lastModified = response.getHeader("Last-Modified");
+            updated.fetchedAt = System.currentTimeMillis();
+            writeEntry(entryFile, updated);
+
+            LOG.debug("Cached response for {} at {}.", urlString, bodyFile);
+            return Files.newBufferedReader(bodyFile, StandardCharsets.UTF_8);
+        }
+
+        catch (IOException e) {
+
+            // An outdated catalog is better than failing the publish outright.
+            if (entry != null) {
+
+                LOG.warn("Could not refresh {}. Using cached response from {}.", urlString, bodyFile, e);
+                return Files.newBufferedReader(bodyFile, StandardCharsets.UTF_8);
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the cache entry for an endpoint.
+     *
+     * @param bodyFile  The file holding the cached response body.
+     * @param entryFile The file holding the cache entry.
+     * @return The cache entry, or null if the endpoint has not been cached or the cached files are unusable.
+     */
+    @Nullable
+    private static CacheEntry readEntry(Path bodyFile, Path entryFile) {
+
+        if (!Files.isRegularFile(bodyFile) || !Files.isRegularFile(entryFile)) {
+
+            return null;
+        }
+
+        try (Reader reader = Files.newBufferedReader(entryFile, StandardCharsets.UTF_8)) {
+
+            return Constants.GSON.fromJson(reader, CacheEntry.class);
+        }
+
+        catch (IOException | JsonParseException e) {
+
+            LOG.debug("Ignoring unreadable cache entry {}.", entryFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the cache entry for an endpoint. Failing to write an entry is not fatal, the response will simply be
+     * requested again next time.
+     *
+     * @param entryFile The file to write the entry to.
+     * @param entry     The entry to write.
+     */
+    private static void writeEntry(Path entryFile, CacheEntry entry) {
+
+        Path tempFile = null;
+
+        try {
+
+            tempFile = Files.createTempFile(entryFile.getParent(), entryFile.getFileName().toString(), ".tmp");
+
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+
+                Constants.GSON.toJson(entry, writer);
+            }
+
+            Files.move(tempFile, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        catch (IOException e) {
+
+            LOG.warn("Could not write cache entry {}.", entryFile, e);
+        }
+
+        finally {
+
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * Deletes a temporary file that was left behind by a failed write.
+     *
+     * @param tempFile The temporary file, or null if it was never created.
+     */
+    private static void deleteQuietly(@Nullable Path tempFile) {
+
+        if (tempFile != null) {
+
+            try {
+
+                Files.deleteIfExists(tempFile);
+            }
+
+            catch (IOException e) {
+
+                LOG.debug("Could not delete temporary file {}.", tempFile, e);
+            }
+        }
+    }
+
+    /**
+     * A POJO that holds the validators of a cached response.
+     */
+    private static final class CacheEntry {
+
+        /**
+         * The URL the response was requested from. This is only stored to make the cache easier to debug.
+         */
+        @Expose
+        @SerializedName("url")
+        String url;
+
+        /**
+         * The ETag header of the response. This may be null if the server did not send one.
+         */
+        @Expose
+        @SerializedName("etag")
+        String etag;
+
+        /**
+         * The Last-Modified header of the response. This may be null if the server did not send one.
+         */
+        @Expose
+        @SerializedName("lastModified")
+        String lastModified;
+
+        /**
+         * The time in milliseconds that the response was last fetched or revalidated.
+         */
+        @Expose
+        @SerializedName("fetchedAt")
+        long fetchedAt;
+    }
+}
@@ -0,0 +1,144 @@
+package net.darkhax.curseforgegradle.api.versions;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import net.darkhax.curseforgegradle.Constants;
+import net.darkhax.curseforgegradle.api.upload.ResponseError;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reads the game version catalog responses from the CurseForge API. The responses are parsed as a stream, so only the
+ * entries that are kept are ever held in memory. This is intended for internal use.
+ */
+public final class VersionCatalogReader {
+
+    private VersionCatalogReader() {
+
+    }
+
+    /**
+     * Reads every version type from a version types response.
+     *
+     * @param reader The response to read.
+     * @return The version types in the response.
+     * @throws IOException        This exception will be raised if the response could not be read.
+     * @throws JsonParseException This exception will be raised if the response is not a list of version types.
+     */
+    public static VersionType[] readVersionTypes(Reader reader) throws IOException {
+
+        final JsonReader json = new JsonReader(reader);
+        final List<VersionType> versionTypes = new ArrayList<>();
+
+        beginArray(json);
+
+        while (json.hasNext()) {
+
+            versionTypes.add(Constants.GSON.fromJson(json, VersionType.class));
+        }
+
+        json.endArray();
+        return versionTypes.toArray(new VersionType[0]);
+    }
+
+    /**
+     * Reads the versions from a versions response. Versions with a type that is not valid are skipped while the
+     * response is read and are never turned into {@link Version} objects.
+     *
+     * @param reader     The response to read.
+     * @param validTypes The IDs of the version types to keep.
+     * @param consumer   A consumer that accepts each version that was kept.
+     * @throws IOException        This exception will be raised if the response could not be read.
+     * @throws JsonParseException This exception will be raised if the response is not a list of versions.
+     */
+    public static void readVersions(Reader reader, Set<Long> validTypes, Consumer<Version> consumer) throws IOException {
+
+        final JsonReader json = new JsonReader(reader);
+
+        beginArray(json);
+
+        while (json.hasNext()) {
+
+            long id = 0;
+            long typeId = 0;
+            String slug = null;
+            String name = null;
+
+            json.beginObject();
+
+            while (json.hasNext()) {
+
+                final String property = json.nextName();
+
+                if (json.peek() == JsonToken.NULL) {
+
+                    json.nextNull();
+                    continue;
+                }
+
+                switch (property) {
+
+                    case "id":
+                        id = json.nextLong();
+                        break;
+
+                    case "gameVersionTypeID":
+                        typeId = json.nextLong();
+                        break;
+
+                    case "slug":
+                        slug = json.nextString();
+                        break;
+
+                    case "name":
+                        name = json.nextString();
+                        break;
+
+                    default:
+                        json.skipValue();
+                }
+            }
+
+            json.endObject();
+
+            if (validTypes.contains(typeId)) {
+
+                consumer.accept(new Version(id, typeId, slug, name));
+            }
+        }
+
+        json.endArray();
+    }
+
+    /**
+     * Consumes the start of the array that holds the entries of a catalog response. CurseForge responds with an error
+     * object instead of an array when a request is rejected, the message of that error is reported when this happens.
+     *
+     * @param json The response being read.
+     * @throws IOException        This exception will be raised if the response could not be read.
+     * @throws JsonParseException This exception will be raised if the response is not an array.
+     */
+    private static void beginArray(JsonReader json) throws IOException {
+
+        final JsonToken token = json.peek();
+
+        if (token == JsonToken.BEGIN_OBJECT) {
+
+            final ResponseError error = Constants.GSON.fromJson(json, ResponseError.class);
+            throw new JsonParseException("Error code '" + error.getCode() + "', message '" + error.getMessage() + "'.");
+        }
+
+        if (token != JsonToken.BEGIN_ARRAY) {
+
+            throw new JsonParseException("Expected a list but found " + token + " at " + json.getPath() + ".");
+        }
+
+        json.beginArray();
+    }
+}
@@ -16,4 +16,14 @@ public class BukkitMinecraftVersionTypeProvider implements VersionTypeProvider {
         validVersionTypes.add(1L);
         return validVersionTypes;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj != null && obj.getClass() == this.getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return this.getClass().hashCode();
+    }
 }
@@ -22,4 +22,14 @@ public class ModloaderVersionTypeProvider implements VersionTypeProvider {
 
         return validVersionTypes;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj != null && obj.getClass() == this.getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return this.getClass().hashCode();
+    }
 }
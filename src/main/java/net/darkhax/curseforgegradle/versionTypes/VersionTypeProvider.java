@@ -4,6 +4,12 @@ import net.darkhax.curseforgegradle.api.versions.VersionType;
 
 import java.util.Set;
 
+/**
+ * Determines which game version types are considered when resolving the game versions of an upload. The filtered game
+ * version catalog is shared by every task that uses equal providers, so implementations that hold state must implement
+ * {@link Object#equals(Object)} and {@link Object#hashCode()} based on that state. Providers that do not implement them
+ * are compared by identity, which is always safe but only shares the catalog between tasks using the same instance.
+ */
 public interface VersionTypeProvider {
     /**
      * Get a list of all valid game version type ids that should be considered when finding the ID of a version
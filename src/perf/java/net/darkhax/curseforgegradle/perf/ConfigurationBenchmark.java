@@ -0,0 +1,131 @@
+package net.darkhax.curseforgegradle.perf;
+
+import org.gradle.testkit.runner.GradleRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the configuration time of a build that defines many publish tasks that are not executed. Each scenario runs
+ * the help task in a generated project, so the measured time is almost entirely configuration. The baseline scenario
+ * has no publish tasks, the registered scenario registers them lazily and the realized scenario forces all of them to
+ * be created. Run this through the configurationBenchmark task.
+ */
+public final class ConfigurationBenchmark {
+
+    /**
+     * The number of publish tasks defined by each scenario.
+     */
+    private static final int TASK_COUNT = 100;
+
+    /**
+     * The number of runs used to warm up the TestKit daemon before measuring.
+     */
+    private static final int WARMUP_RUNS = 3;
+
+    /**
+     * The number of measured runs for each scenario.
+     */
+    private static final int MEASURED_RUNS = 10;
+
+    private ConfigurationBenchmark() {
+
+    }
+
+    /**
+     * @param args The directory the generated projects are written to.
+     * @throws IOException This exception will be raised if the projects could not be written.
+     */
+    public static void main(String[] args) throws IOException {
+
+        final Path workDir = Paths.get(args.length > 0 ? args[0] : "build/perf/configuration");
+
+        final long baseline = run(createProject(workDir.resolve("baseline"), ""), "baseline");
+        final long registered = run(createProject(workDir.resolve("registered"), publishTasks(false)), "registered");
+        final long realized = run(createProject(workDir.resolve("realized"), publishTasks(true)), "realized");
+
+        System.out.printf(Locale.ROOT, "%d registered publish tasks add %d ms to configuration. Realizing them adds %d ms.%n", TASK_COUNT, registered - baseline, realized - baseline);
+    }
+
+    /**
+     * Creates the build script lines that define the publish tasks.
+     *
+     * @param realize Whether the tasks are forced to be created during configuration.
+     * @return The build script lines.
+     */
+    private static String publishTasks(boolean realize) {
+
+        final StringBuilder script = new StringBuilder();
+        script.append("for (int i = 0; i < ").append(TASK_COUNT).append("; i++) {\n");
+        script.append("    tasks.register(\"publishCurseForge$i\", net.darkhax.curseforgegradle.TaskPublishCurseForge) {\n");
+        script.append("        apiToken = 'token'\n");
+        script.append("        def mainFile = upload(1234, tasks.named('jar'))\n");
+        script.append("        mainFile.changelog = 'Changelog'\n");
+        script.append("        mainFile.addGameVersion('1.20.1')\n");
+        script.append("    }\n");
+        script.append("}\n");
+
+        if (realize) {
+
+            script.append("tasks.withType(net.darkhax.curseforgegradle.TaskPublishCurseForge).forEach { }\n");
+        }
+
+        return script.toString();
+    }
+
+    /**
+     * Writes a project that applies the plugin.
+     *
+     * @param dir    The project directory.
+     * @param script Additional build script lines.
+     * @return The project directory.
+     * @throws IOException This exception will be raised if the project could not be written.
+     */
+    private static File createProject(Path dir, String script) throws IOException {
+
+        Files.createDirectories(dir);
+        Files.write(dir.resolve("settings.gradle"), "rootProject.name = 'configuration-benchmark'\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("build.gradle"), ("plugins {\n    id 'java'\n    id 'net.darkhax.curseforgegradle'\n}\n\n" + script).getBytes(StandardCharsets.UTF_8));
+        return dir.toFile();
+    }
+
+    /**
+     * Runs the help task in a project and reports the configuration time.
+     *
+     * @param projectDir The project directory.
+     * @param name       The name of the scenario.
+     * @return The median time of the measured runs in milliseconds.
+     */
+    private static long run(File projectDir, String name) {
+
+        final GradleRunner runner = GradleRunner.create().withProjectDir(projectDir).withPluginClasspath().withArguments("help", "--quiet");
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+
+            runner.build();
+        }
+
+        final List<Long> times = new ArrayList<>();
+
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+
+            final long start = System.nanoTime();
+            runner.build();
+            times.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+
+        Collections.sort(times);
+        final long median = times.get(times.size() / 2);
+        System.out.printf(Locale.ROOT, "%-10s median %5d ms, min %5d ms, max %5d ms%n", name, median, times.get(0), times.get(times.size() - 1));
+        return median;
+    }
+}
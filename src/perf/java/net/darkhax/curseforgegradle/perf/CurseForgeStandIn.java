@@ -0,0 +1,545 @@
+package net.darkhax.curseforgegradle.perf;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A local server that stands in for the CurseForge upload API, so the plugin can be measured without a network or a
+ * real project. The server answers the game version catalog endpoints with synthetic payloads and accepts every upload
+ * with a new file ID. The latency of each response, the bandwidth available to each upload and the share of requests
+ * rejected with a temporary error can be configured to test the plugin under realistic or hostile conditions.
+ * <p>
+ * Builds use the server by setting the apiEndpoint of their publish tasks to {@link #getEndpoint()}. The server can
+ * also be started on its own through the curseForgeStandIn task, which prints the endpoint and runs until stopped.
+ */
+public final class CurseForgeStandIn implements AutoCloseable {
+
+    /**
+     * The path of the upload endpoint. The first group is the project ID.
+     */
+    private static final Pattern UPLOAD_PATH = Pattern.compile("^/api/projects/(\\d+)/upload-file$");
+
+    /**
+     * The size of the chunks the upload bodies are read in. Bandwidth caps are applied after each chunk.
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * The HTTP server that handles the requests.
+     */
+    private final HttpServer server;
+
+    /**
+     * The threads that handle the requests. A thread is used for each request, so the latency of one request does not
+     * delay the others.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The response of the game versions endpoint.
+     */
+    private volatile byte[] versions;
+
+    /**
+     * The response of the game version types endpoint.
+     */
+    private volatile byte[] versionTypes;
+
+    /**
+     * The time in milliseconds every response is delayed by.
+     */
+    private volatile long latencyMillis = 0;
+
+    /**
+     * The maximum number of bytes per second each upload is read at, or 0 to read uploads as fast as possible.
+     */
+    private volatile long bytesPerSecond = 0;
+
+    /**
+     * The share of requests rejected with {@link #failureStatus}, between 0 and 1.
+     */
+    private volatile double failureRate = 0;
+
+    /**
+     * The status code sent for rejected requests. This should be 429 or a 5xx status code, which the plugin retries.
+     */
+    private volatile int failureStatus = 503;
+
+    /**
+     * The number of seconds sent in the Retry-After header of rejected requests, or 0 to not send the header.
+     */
+    private volatile int retryAfterSeconds = 1;
+
+    /**
+     * Decides which requests are rejected. The seed is fixed so runs inject a similar number of failures.
+     */
+    private final Random failureRandom = new Random(42);
+
+    /**
+     * The ID of the last accepted upload.
+     */
+    private final AtomicLong lastFileId = new AtomicLong(1000);
+
+    private final AtomicInteger catalogRequests = new AtomicInteger();
+
+    private final AtomicInteger uploads = new AtomicInteger();
+
+    private final AtomicInteger injectedFailures = new AtomicInteger();
+
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    private CurseForgeStandIn(HttpServer server, byte[] versions, byte[] versionTypes) {
+
+        this.server = server;
+        this.versions = versions;
+        this.versionTypes = versionTypes;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+
+            final Thread thread = new Thread(runnable, "CurseForge stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server.setExecutor(this.executor);
+        server.createContext("/api/game/versions", exchange -> this.handle(exchange, () -> this.sendCatalog(exchange, this.versions)));
+        server.createContext("/api/game/version-types", exchange -> this.handle(exchange, () -> this.sendCatalog(exchange, this.versionTypes)));
+        server.createContext("/api/projects/", exchange -> this.handle(exchange, () -> this.receiveUpload(exchange)));
+    }
+
+    /**
+     * Starts a server on a free port of the loopback address. The server answers the catalog endpoints with the
+     * synthetic catalog of the benchmarks.
+     *
+     * @return The started server.
+     * @throws IOException This exception will be raised if the server could not be started.
+     */
+    public static CurseForgeStandIn start() throws IOException {
+
+        return start(0);
+    }
+
+    /**
+     * Starts a server on the loopback address. The server answers the catalog endpoints with the synthetic catalog of
+     * the benchmarks.
+     *
+     * @param port The port to listen on, or 0 to use a free port.
+     * @return The started server.
+     * @throws IOException This exception will be raised if the server could not be started.
+     */
+    public static CurseForgeStandIn start(int port) throws IOException {
+
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        final CurseForgeStandIn standIn = new CurseForgeStandIn(server, loadResource("catalog/game-versions.json"), loadResource("catalog/game-version-types.json"));
+        server.start();
+        return standIn;
+    }
+
+    /**
+     * Replaces the synthetic catalog with the payloads in a directory, such as responses saved from the live API. The
+     * directory must hold the responses as {@code api/game/versions.json} and {@code api/game/version-types.json}.
+     *
+     * @param directory The directory that holds the payloads.
+     * @return The same server, to allow chaining.
+     * @throws IOException This exception will be raised if the payloads could not be read.
+     */
+    public CurseForgeStandIn withCatalog(File directory) throws IOException {
+
+        this.versions = Files.readAllBytes(new File(directory, "api/game/versions.json").toPath());
+        this.versionTypes = Files.readAllBytes(new File(directory, "api/game/version-types.json").toPath());
+        return this;
+    }
+
+    /**
+     * Delays every response, to simulate the round trip to the live API.
+     *
+     * @param latencyMillis The delay in milliseconds.
+     * @return The same server, to allow chaining.
+     */
+    public CurseForgeStandIn withLatency(long latencyMillis) {
+
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    /**
+     * Limits how fast each upload is read, to simulate a slow connection.
+     *
+     * @param bytesPerSecond The maximum number of bytes per second, or 0 to remove the limit.
+     * @return The same server, to allow chaining.
+     */
+    public CurseForgeStandIn withBandwidth(long bytesPerSecond) {
+
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Rejects a share of the requests with a temporary error, to test how the plugin retries requests.
+     *
+     * @param failureRate       The share of requests that are rejected, between 0 and 1.
+     * @param failureStatus     The status code of rejected requests, for example 429 or 503.
+     * @param retryAfterSeconds The number of seconds sent in the Retry-After header, or 0 to not send the header.
+     * @return The same server, to allow chaining.
+     */
+    public CurseForgeStandIn withFailures(double failureRate, int failureStatus, int retryAfterSeconds) {
+
+        this.failureRate = failureRate;
+        this.failureStatus = failureStatus;
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    /**
+     * Gets the endpoint builds should use as their apiEndpoint.
+     *
+     * @return The endpoint of the server.
+     */
+    public String getEndpoint() {
+
+        return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort();
+    }
+
+    public int getCatalogRequests() {
+        return this.catalogRequests.get();
+    }
+
+    public int getUploads() {
+        return this.uploads.get();
+    }
+
+    public int getInjectedFailures() {
+        return this.injectedFailures.get();
+    }
+
+    public long getBytesReceived() {
+        return this.bytesReceived.get();
+    }
+
+    /**
+     * Resets the request counters, so the next measurement only counts its own requests.
+     */
+    public void resetCounters() {
+
+        this.catalogRequests.set(0);
+        this.uploads.set(0);
+        this.injectedFailures.set(0);
+        this.bytesReceived.set(0);
+    }
+
+    @Override
+    public void close() {
+
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Applies the latency and failure settings to a request before it is answered by its handler. Requests without an
+     * API token are rejected the same way the live API rejects them.
+     *
+     * @param exchange The request.
+     * @param handler  The handler that answers the request.
+     * @throws IOException This exception will be raised if the response could not be sent.
+     */
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+
+        try {
+
+            if (this.latencyMillis > 0) {
+
+                Thread.sleep(this.latencyMillis);
+            }
+
+            if (exchange.getRequestHeaders().getFirst("X-Api-Token") == null) {
+
+                this.drain(exchange.getRequestBody(), false);
+                sendJson(exchange, 401, "{\"errorCode\":401,\"errorMessage\":\"You must provide an API token using the `X-Api-Token` header.\"}");
+            }
+
+            else if (this.shouldFail()) {
+
+                this.injectedFailures.incrementAndGet();
+                this.drain(exchange.getRequestBody(), false);
+
+                if (this.retryAfterSeconds > 0) {
+
+                    exchange.getResponseHeaders().add("Retry-After", Integer.toString(this.retryAfterSeconds));
+                }
+
+                sendJson(exchange, this.failureStatus, "{\"errorCode\":" + this.failureStatus + ",\"errorMessage\":\"Injected failure\"}");
+            }
+
+            else {
+
+                handler.handle();
+            }
+        }
+
+        catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The stand-in server was stopped.");
+        }
+
+        finally {
+
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sends a catalog payload. Requests that already hold the current catalog are answered with 304 Not Modified, so
+     * the revalidation of the local version cache can be measured.
+     *
+     * @param exchange The request.
+     * @param payload  The catalog payload.
+     * @throws IOException This exception will be raised if the response could not be sent.
+     */
+    private void sendCatalog(HttpExchange exchange, byte[] payload) throws IOException {
+
+        this.catalogRequests.incrementAndGet();
+        final String etag = "\"" + Hashing.sha256().hashBytes(payload) + "\"";
+        exchange.getResponseHeaders().add("ETag", etag);
+
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, payload.length);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+
+            output.write(payload);
+        }
+    }
+
+    /**
+     * Receives an upload and answers it with a new file ID. The body is read and discarded, at no more than the
+     * configured bandwidth.
+     *
+     * @param exchange The request.
+     * @throws IOException          This exception will be raised if the upload could not be read or answered.
+     * @throws InterruptedException This exception will be raised if the server is stopped during the upload.
+     */
+    private void receiveUpload(HttpExchange exchange) throws IOException, InterruptedException {
+
+        final Matcher matcher = UPLOAD_PATH.matcher(exchange.getRequestURI().getPath());
+        final String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+
+        if (!matcher.matches() || !"POST".equals(exchange.getRequestMethod())) {
+
+            this.drain(exchange.getRequestBody(), false);
+            sendJson(exchange, 404, "{\"errorCode\":404,\"errorMessage\":\"Not found\"}");
+        }
+
+        else if (contentType == null || !contentType.startsWith("multipart/form-data")) {
+
+            this.drain(exchange.getRequestBody(), false);
+            sendJson(exchange, 400, "{\"errorCode\":1000,\"errorMessage\":\"The upload must be a multipart request.\"}");
+        }
+
+        else {
+
+            this.bytesReceived.addAndGet(this.drain(exchange.getRequestBody(), true));
+            this.uploads.incrementAndGet();
+            sendJson(exchange, 200, "{\"id\":" + this.lastFileId.incrementAndGet() + "}");
+        }
+    }
+
+    /**
+     * Reads and discards a request body.
+     *
+     * @param body     The request body.
+     * @param throttle Whether the bandwidth cap is applied.
+     * @return The number of bytes read.
+     * @throws IOException          This exception will be raised if the body could not be read.
+     * @throws InterruptedException This exception will be raised if the server is stopped while throttling.
+     */
+    private long drain(InputStream body, boolean throttle) throws IOException, InterruptedException {
+
+        final long limit = throttle ? this.bytesPerSecond : 0;
+
+        if (limit <= 0) {
+
+            return ByteStreams.exhaust(body);
+        }
+
+        final byte[] buffer = new byte[CHUNK_SIZE];
+        final long start = System.nanoTime();
+        long total = 0;
+        int read;
+
+        while ((read = body.read(buffer)) != -1) {
+
+            total += read;
+
+            // Sleeps until the bytes read so far would have taken this long at the configured bandwidth.
+            final long aheadNanos = total * TimeUnit.SECONDS.toNanos(1) / limit - (System.nanoTime() - start);
+
+            if (aheadNanos > 0) {
+
+                TimeUnit.NANOSECONDS.sleep(aheadNanos);
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Decides if the current request is rejected.
+     *
+     * @return If the request should be rejected.
+     */
+    private boolean shouldFail() {
+
+        if (this.failureRate <= 0) {
+
+            return false;
+        }
+
+        synchronized (this.failureRandom) {
+
+            return this.failureRandom.nextDouble() < this.failureRate;
+        }
+    }
+
+    /**
+     * Sends a JSON response.
+     *
+     * @param exchange The request.
+     * @param status   The status code of the response.
+     * @param json     The body of the response.
+     * @throws IOException This exception will be raised if the response could not be sent.
+     */
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+
+        final byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+
+            output.write(body);
+        }
+    }
+
+    /**
+     * Reads a synthetic payload from the perf resources.
+     *
+     * @param path The path of the payload relative to the resource root.
+     * @return The raw bytes of the payload.
+     */
+    private static byte[] loadResource(String path) {
+
+        try (InputStream stream = CurseForgeStandIn.class.getResourceAsStream("/" + path)) {
+
+            if (stream == null) {
+
+                throw new IllegalStateException("Missing payload " + path);
+            }
+
+            return ByteStreams.toByteArray(stream);
+        }
+
+        catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts a server that runs until the process is stopped. The arguments are pairs of option names and values, all
+     * of them optional: {@code --port}, {@code --latency} in milliseconds, {@code --bandwidth} in bytes per second,
+     * {@code --failure-rate}, {@code --failure-status}, {@code --retry-after} in seconds and {@code --catalog} with a
+     * directory of saved payloads.
+     *
+     * @param args The options of the server.
+     * @throws Exception This exception will be raised if the server could not be started.
+     */
+    public static void main(String[] args) throws Exception {
+
+        int port = 0;
+        long latency = 0;
+        long bandwidth = 0;
+        double failureRate = 0;
+        int failureStatus = 503;
+        int retryAfter = 1;
+        File catalog = null;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+
+            final String value = args[i + 1];
+
+            switch (args[i]) {
+
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--latency":
+                    latency = Long.parseLong(value);
+                    break;
+                case "--bandwidth":
+                    bandwidth = Long.parseLong(value);
+                    break;
+                case "--failure-rate":
+                    failureRate = Double.parseDouble(value);
+                    break;
+                case "--failure-status":
+                    failureStatus = Integer.parseInt(value);
+                    break;
+                case "--retry-after":
+                    retryAfter = Integer.parseInt(value);
+                    break;
+                case "--catalog":
+                    catalog = new File(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        final CurseForgeStandIn standIn = start(port).withLatency(latency).withBandwidth(bandwidth).withFailures(failureRate, failureStatus, retryAfter);
+
+        if (catalog != null) {
+
+            standIn.withCatalog(catalog);
+        }
+
+        System.out.printf(Locale.ROOT, "CurseForge stand-in listening on %s%n", standIn.getEndpoint());
+        Thread.currentThread().join();
+    }
+
+    /**
+     * Answers a request that passed the latency and failure checks.
+     */
+    @FunctionalInterface
+    private interface Handler {
+
+        void handle() throws IOException, InterruptedException;
+    }
+}
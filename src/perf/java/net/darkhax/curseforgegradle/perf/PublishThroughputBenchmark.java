@@ -0,0 +1,369 @@
+package net.darkhax.curseforgegradle.perf;
+
+import org.gradle.testkit.runner.GradleRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures full publish runs of generated builds against a {@link CurseForgeStandIn}. Each build publishes N parent
+ * artifacts with M additional files each to K CurseForge projects from a single publish task. The same build is run
+ * once for each concurrency scenario, and the median wall time, the peak heap of the build and the upload throughput
+ * are reported for each of them.
+ * <p>
+ * The results are written to {@code results.properties} in the work directory. When a baseline from an earlier run is
+ * given, the run fails if any scenario is slower, uses more heap or uploads slower than the baseline by more than the
+ * allowed regression. Run this through the publishThroughputBenchmark task.
+ */
+public final class PublishThroughputBenchmark {
+
+    /**
+     * The number of runs used to warm up the TestKit daemon before measuring.
+     */
+    private static final int WARMUP_RUNS = 2;
+
+    private PublishThroughputBenchmark() {
+
+    }
+
+    /**
+     * The first argument is the directory the generated project and the results are written to. The remaining
+     * arguments are pairs of option names and values, all of them optional: {@code --artifacts}, {@code --children}
+     * and {@code --projects} for the size of the build, {@code --size-kb} for the size of each file, {@code --runs}
+     * for the number of measured runs, {@code --latency} and {@code --bandwidth} for the stand-in server,
+     * {@code --baseline} with the results of an earlier run and {@code --threshold} with the allowed regression as a
+     * fraction of the baseline.
+     *
+     * @param args The work directory and options.
+     * @throws IOException This exception will be raised if the project or the results could not be written.
+     */
+    public static void main(String[] args) throws IOException {
+
+        final Path workDir = Paths.get(args.length > 0 ? args[0] : "build/perf/throughput");
+        int artifacts = 8;
+        int children = 2;
+        int projects = 4;
+        int sizeKb = 512;
+        int runs = 5;
+        long latency = 50;
+        long bandwidth = 0;
+        File baseline = null;
+        double threshold = 0.2;
+
+        for (int i = 1; i + 1 < args.length; i += 2) {
+
+            final String value = args[i + 1];
+
+            switch (args[i]) {
+
+                case "--artifacts":
+                    artifacts = Integer.parseInt(value);
+                    break;
+                case "--children":
+                    children = Integer.parseInt(value);
+                    break;
+                case "--projects":
+                    projects = Integer.parseInt(value);
+                    break;
+                case "--size-kb":
+                    sizeKb = Integer.parseInt(value);
+                    break;
+                case "--runs":
+                    runs = Integer.parseInt(value);
+                    break;
+                case "--latency":
+                    latency = Long.parseLong(value);
+                    break;
+                case "--bandwidth":
+                    bandwidth = Long.parseLong(value);
+                    break;
+                case "--baseline":
+                    baseline = value.isEmpty() ? null : new File(value);
+                    break;
+                case "--threshold":
+                    threshold = Double.parseDouble(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        final Properties results = new Properties();
+        final int expectedUploads = artifacts * (children + 1) * projects;
+
+        System.out.printf(Locale.ROOT, "Publishing %d artifacts with %d additional files to %d projects, %d uploads of %d KB per run.%n", artifacts, children, projects, expectedUploads, sizeKb);
+
+        try (CurseForgeStandIn standIn = CurseForgeStandIn.start().withLatency(latency).withBandwidth(bandwidth)) {
+
+            final Scenario[] scenarios = {
+                    new Scenario("sequential", "uploadConcurrency = 1", "--max-workers=1"),
+                    new Scenario("parallel", ""),
+                    new Scenario("async", "asyncUploads = true")
+            };
+
+            for (Scenario scenario : scenarios) {
+
+                final File projectDir = createProject(workDir.resolve(scenario.name), standIn.getEndpoint(), scenario.settings, artifacts, children, projects, sizeKb);
+                run(projectDir, scenario, standIn, expectedUploads, runs, results);
+            }
+        }
+
+        final Path resultsFile = workDir.resolve("results.properties");
+
+        try (OutputStream output = Files.newOutputStream(resultsFile)) {
+
+            results.store(output, "Publish throughput results");
+        }
+
+        System.out.printf(Locale.ROOT, "Results written to %s%n", resultsFile);
+
+        if (baseline != null) {
+
+            compare(results, baseline, threshold);
+        }
+    }
+
+    /**
+     * Writes a project that publishes generated files to the stand-in server. Every file has different contents, so
+     * the plugin can not reuse the data of identical files.
+     *
+     * @param dir       The project directory.
+     * @param endpoint  The endpoint of the stand-in server.
+     * @param settings  Additional settings of the publish task.
+     * @param artifacts The number of parent artifacts published to each project.
+     * @param children  The number of additional files of each parent artifact.
+     * @param projects  The number of CurseForge projects.
+     * @param sizeKb    The size of each file in kilobytes.
+     * @return The project directory.
+     * @throws IOException This exception will be raised if the project could not be written.
+     */
+    private static File createProject(Path dir, String endpoint, String settings, int artifacts, int children, int projects, int sizeKb) throws IOException {
+
+        final Path filesDir = dir.resolve("artifacts");
+        Files.createDirectories(filesDir);
+
+        final byte[] block = new byte[1024];
+        final Random random = new Random(42);
+
+        for (int project = 0; project < projects; project++) {
+
+            for (int artifact = 0; artifact < artifacts; artifact++) {
+
+                for (int child = 0; child <= children; child++) {
+
+                    try (OutputStream output = Files.newOutputStream(filesDir.resolve(fileName(project, artifact, child)))) {
+
+                        for (int i = 0; i < sizeKb; i++) {
+
+                            random.nextBytes(block);
+                            output.write(block);
+                        }
+                    }
+                }
+            }
+        }
+
+        final StringBuilder script = new StringBuilder();
+        script.append("plugins {\n    id 'net.darkhax.curseforgegradle'\n}\n\n");
+
+        // The peak usage is reset while the build is configured, so the daemon reports the peak of each run.
+        script.append("def heapPools = java.lang.management.ManagementFactory.memoryPoolMXBeans.findAll { it.type == java.lang.management.MemoryType.HEAP }\n");
+        script.append("heapPools.each { it.resetPeakUsage() }\n\n");
+
+        script.append("def recordPeakHeap = tasks.register('recordPeakHeap') {\n");
+        script.append("    def output = layout.buildDirectory.file('peak-heap.txt')\n");
+        script.append("    doLast {\n");
+        script.append("        output.get().asFile.text = heapPools.sum { it.peakUsage.used }.toString()\n");
+        script.append("    }\n");
+        script.append("}\n\n");
+
+        script.append("tasks.register('publishCurseForge', net.darkhax.curseforgegradle.TaskPublishCurseForge) {\n");
+        script.append("    finalizedBy recordPeakHeap\n");
+        script.append("    apiEndpoint = '").append(endpoint).append("'\n");
+        script.append("    apiToken = 'token'\n");
+        script.append("    cacheVersions = false\n");
+        script.append("    useUploadLedger = false\n");
+        script.append("    ").append(settings).append("\n\n");
+        script.append("    for (int project = 0; project < ").append(projects).append("; project++) {\n");
+        script.append("        for (int artifact = 0; artifact < ").append(artifacts).append("; artifact++) {\n");
+        script.append("            def mainFile = upload(1000 + project, file(\"artifacts/").append(fileName("${project}", "${artifact}", "0")).append("\"))\n");
+        script.append("            mainFile.changelog = 'Changelog'\n");
+        script.append("            mainFile.addGameVersion('1.20.1', 'Forge')\n");
+        script.append("            for (int child = 1; child <= ").append(children).append("; child++) {\n");
+        script.append("                mainFile.withAdditionalFile(file(\"artifacts/").append(fileName("${project}", "${artifact}", "${child}")).append("\"))\n");
+        script.append("            }\n");
+        script.append("        }\n");
+        script.append("    }\n");
+        script.append("}\n");
+
+        Files.write(dir.resolve("settings.gradle"), "rootProject.name = 'throughput-benchmark'\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("build.gradle"), script.toString().getBytes(StandardCharsets.UTF_8));
+        return dir.toFile();
+    }
+
+    /**
+     * Gets the name of a generated file.
+     *
+     * @param project  The index of the project.
+     * @param artifact The index of the parent artifact.
+     * @param child    The index of the additional file, or 0 for the parent artifact itself.
+     * @return The name of the file.
+     */
+    private static String fileName(Object project, Object artifact, Object child) {
+
+        return "artifact-" + project + "-" + artifact + "-" + child + ".jar";
+    }
+
+    /**
+     * Publishes a project repeatedly and records the results of the scenario.
+     *
+     * @param projectDir      The project directory.
+     * @param scenario        The scenario being measured.
+     * @param standIn         The stand-in server the files are published to.
+     * @param expectedUploads The number of uploads each run has to make.
+     * @param runs            The number of measured runs.
+     * @param results         The results of all scenarios.
+     * @throws IOException This exception will be raised if the peak heap of a run could not be read.
+     */
+    private static void run(File projectDir, Scenario scenario, CurseForgeStandIn standIn, int expectedUploads, int runs, Properties results) throws IOException {
+
+        final List<String> arguments = new ArrayList<>();
+        Collections.addAll(arguments, "publishCurseForge", "--rerun-tasks", "--quiet");
+        Collections.addAll(arguments, scenario.arguments);
+        final GradleRunner runner = GradleRunner.create().withProjectDir(projectDir).withPluginClasspath().withArguments(arguments);
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+
+            runner.build();
+        }
+
+        final List<Long> times = new ArrayList<>();
+        long bytes = 0;
+        long peakHeap = 0;
+
+        for (int i = 0; i < runs; i++) {
+
+            standIn.resetCounters();
+            final long start = System.nanoTime();
+            runner.build();
+            times.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            if (standIn.getUploads() != expectedUploads) {
+
+                throw new IllegalStateException("Scenario " + scenario.name + " made " + standIn.getUploads() + " uploads instead of " + expectedUploads + ".");
+            }
+
+            bytes = standIn.getBytesReceived();
+            peakHeap = Math.max(peakHeap, readPeakHeap(projectDir));
+        }
+
+        Collections.sort(times);
+        final long median = times.get(times.size() / 2);
+        final long bytesPerSecond = bytes * 1000 / Math.max(1, median);
+
+        results.setProperty(scenario.name + ".wallMillis", Long.toString(median));
+        results.setProperty(scenario.name + ".peakHeapBytes", Long.toString(peakHeap));
+        results.setProperty(scenario.name + ".bytesPerSecond", Long.toString(bytesPerSecond));
+
+        System.out.printf(Locale.ROOT, "%-10s median %6d ms, min %6d ms, max %6d ms, peak heap %5d MB, %8.2f MB/s%n", scenario.name, median, times.get(0), times.get(times.size() - 1), peakHeap / (1024 * 1024), bytesPerSecond / (1024d * 1024d));
+    }
+
+    /**
+     * Reads the peak heap recorded by the last run of a project.
+     *
+     * @param projectDir The project directory.
+     * @return The peak heap usage in bytes.
+     * @throws IOException This exception will be raised if the peak heap could not be read.
+     */
+    private static long readPeakHeap(File projectDir) throws IOException {
+
+        final Path file = projectDir.toPath().resolve("build/peak-heap.txt");
+        return Long.parseLong(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim());
+    }
+
+    /**
+     * Compares the results with the results of an earlier run. Scenarios that are missing from the baseline are
+     * skipped.
+     *
+     * @param results   The results of this run.
+     * @param baseline  The results file of the earlier run.
+     * @param threshold The allowed regression as a fraction of the baseline.
+     * @throws IOException This exception will be raised if the baseline could not be read.
+     */
+    private static void compare(Properties results, File baseline, double threshold) throws IOException {
+
+        final Properties expected = new Properties();
+
+        try (InputStream input = Files.newInputStream(baseline.toPath())) {
+
+            expected.load(input);
+        }
+
+        final List<String> regressions = new ArrayList<>();
+
+        for (String key : results.stringPropertyNames()) {
+
+            final String baselineValue = expected.getProperty(key);
+
+            if (baselineValue == null) {
+
+                continue;
+            }
+
+            final long before = Long.parseLong(baselineValue);
+            final long after = Long.parseLong(results.getProperty(key));
+
+            // Throughput regresses when it drops, the other results regress when they grow.
+            final boolean regressed = key.endsWith(".bytesPerSecond") ? after < before * (1 - threshold) : after > before * (1 + threshold);
+
+            if (regressed) {
+
+                regressions.add(String.format(Locale.ROOT, "%s went from %d to %d", key, before, after));
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+
+            throw new IllegalStateException("Publish throughput regressed by more than " + Math.round(threshold * 100) + "% compared to " + baseline + ": " + String.join(", ", regressions) + ".");
+        }
+
+        System.out.printf(Locale.ROOT, "No regression of more than %d%% compared to %s.%n", Math.round(threshold * 100), baseline);
+    }
+
+    /**
+     * A way of running the publish task that is measured separately.
+     */
+    private static final class Scenario {
+
+        private final String name;
+
+        private final String settings;
+
+        private final String[] arguments;
+
+        /**
+         * @param name      The name of the scenario.
+         * @param settings  Additional settings of the publish task.
+         * @param arguments Additional arguments passed to Gradle.
+         */
+        private Scenario(String name, String settings, String... arguments) {
+
+            this.name = name;
+            this.settings = settings;
+            this.arguments = arguments;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package net.darkhax.curseforgegradle;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs real builds through TestKit against a loopback stand-in of the CurseForge API, to check that the publish task
+ * is up to date when nothing changed and publishes again when the metadata or the artifact changes.
+ */
+class PublishUpToDateTest {
+
+    @TempDir
+    File projectDir;
+
+    private HttpServer server;
+
+    private final AtomicInteger uploads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/api/game/version-types", exchange -> respond(exchange, "[{\"id\":75125,\"name\":\"Minecraft 1.20\",\"slug\":\"minecraft-1-20\"}]"));
+        this.server.createContext("/api/game/versions", exchange -> respond(exchange, "[{\"id\":9990,\"gameVersionTypeID\":75125,\"name\":\"1.20.1\",\"slug\":\"1-20-1\"}]"));
+        this.server.createContext("/api/projects/", exchange -> respond(exchange, "{\"id\":" + this.uploads.incrementAndGet() + "}"));
+        this.server.start();
+
+        this.write("settings.gradle", "rootProject.name = 'publish-test'");
+        this.write("mod.jar", "first build");
+        this.writeBuildScript("First release.");
+    }
+
+    @AfterEach
+    void tearDown() {
+
+        this.server.stop(0);
+    }
+
+    @Test
+    void secondRunIsUpToDate() throws IOException {
+
+        assertEquals(TaskOutcome.SUCCESS, this.publish());
+        assertEquals(1, this.uploads.get());
+
+        assertEquals(TaskOutcome.UP_TO_DATE, this.publish());
+        assertEquals(1, this.uploads.get());
+    }
+
+    @Test
+    void changedMetadataPublishesAgain() throws IOException {
+
+        assertEquals(TaskOutcome.SUCCESS, this.publish());
+
+        this.writeBuildScript("Second release.");
+
+        assertEquals(TaskOutcome.SUCCESS, this.publish());
+        assertEquals(2, this.uploads.get());
+    }
+
+    @Test
+    void changedArtifactPublishesAgain() throws IOException {
+
+        assertEquals(TaskOutcome.SUCCESS, this.publish());
+
+        this.write("mod.jar", "second build");
+
+        assertEquals(TaskOutcome.SUCCESS, this.publish());
+        assertEquals(2, this.uploads.get());
+    }
+
+    /**
+     * Runs the publish task.
+     *
+     * @return The outcome of the publish task.
+     */
+    private TaskOutcome publish() {
+
+        final BuildResult result = GradleRunner.create().withProjectDir(this.projectDir).withPluginClasspath().withArguments("publishCurseForge", "--stacktrace").build();
+        return result.task(":publishCurseForge").getOutcome();
+    }
+
+    /**
+     * Writes a build script that publishes mod.jar with the given changelog.
+     *
+     * @param changelog The changelog of the published file.
+     * @throws IOException This exception will be raised if the script could not be written.
+     */
+    private void writeBuildScript(String changelog) throws IOException {
+
+        this.write("build.gradle", String.join("\n",
+                "plugins { id 'net.darkhax.curseforgegradle' }",
+                "tasks.register('publishCurseForge', net.darkhax.curseforgegradle.TaskPublishCurseForge) {",
+                "    apiEndpoint = 'http://127.0.0.1:" + this.server.getAddress().getPort() + "'",
+                "    apiToken = 'token'",
+                "    cacheVersions = false",
+                "    def mod = upload(1234, file('mod.jar'))",
+                "    mod.changelog = '" + changelog + "'",
+                "    mod.addGameVersion('1.20.1')",
+                "}"));
+    }
+
+    /**
+     * Writes a file in the test project.
+     *
+     * @param path    The path of the file, relative to the project directory.
+     * @param content The content of the file.
+     * @throws IOException This exception will be raised if the file could not be written.
+     */
+    private void write(String path, String content) throws IOException {
+
+        Files.write(new File(this.projectDir, path).toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the request body and answers the request with a JSON response.
+     *
+     * @param exchange The request.
+     * @param json     The body of the response.
+     * @throws IOException This exception will be raised if the response could not be sent.
+     */
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+
+        ByteStreams.exhaust(exchange.getRequestBody());
+
+        final byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+
+            output.write(body);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package net.darkhax.curseforgegradle;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests which failures the {@link RetryPolicy} repeats, for requests in general and for uploads, which are not
+ * idempotent and are only repeated when the API cannot have processed them.
+ */
+class RetryPolicyTest {
+
+    private static final Logger LOG = Logging.getLogger(RetryPolicyTest.class);
+
+    private RetryPolicy policy;
+
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() {
+
+        this.policy = new RetryPolicy();
+        this.policy.initialDelay = 1;
+        this.policy.maxDelay = 1;
+        this.policy.jitter = 0;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+
+        this.scheduler.shutdownNow();
+    }
+
+    @Test
+    void retriesTemporaryFailuresUntilSuccess() throws IOException {
+
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final String result = this.policy.execute(LOG, "Request", () -> {
+
+            if (attempts.incrementAndGet() < 3) {
+
+                throw new HttpStatusException("Overloaded", 503, -1);
+            }
+
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void stopsAfterMaxAttempts() {
+
+        final AtomicInteger attempts = new AtomicInteger();
+        final HttpStatusException failure = new HttpStatusException("Overloaded", 503, -1);
+
+        final IOException thrown = assertThrows(IOException.class, () -> this.policy.execute(LOG, "Request", () -> {
+
+            attempts.incrementAndGet();
+            throw failure;
+        }));
+
+        assertSame(failure, thrown);
+        assertEquals(this.policy.maxAttempts, attempts.get());
+    }
+
+    @Test
+    void doesNotRetryPermanentFailures() {
+
+        final AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(HttpStatusException.class, () -> this.policy.execute(LOG, "Request", () -> {
+
+            attempts.incrementAndGet();
+            throw new HttpStatusException("Not found", 404, -1);
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void doesNotRetryWhenRetryAfterExceedsBudget() {
+
+        final AtomicInteger attempts = new AtomicInteger();
+        this.policy.timeBudget = 100;
+
+        assertThrows(HttpStatusException.class, () -> this.policy.execute(LOG, "Request", () -> {
+
+            attempts.incrementAndGet();
+            throw new HttpStatusException("Rate limited", 429, 60000);
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void classifiesRequestFailures() {
+
+        assertTrue(this.policy.isRetryable(new HttpStatusException("Bad gateway", 502, -1)));
+        assertTrue(this.policy.isRetryable(new SocketTimeoutException()));
+        assertTrue(this.policy.isRetryable(new SocketException()));
+        assertFalse(this.policy.isRetryable(new HttpStatusException("Forbidden", 403, -1)));
+        assertFalse(this.policy.isRetryable(new UnknownHostException()));
+        assertFalse(this.policy.isRetryable(new IOException()));
+    }
+
+    @Test
+    void onlyRetriesUploadsThatWereNotProcessed() {
+
+        assertTrue(this.policy.isRetryableUpload(new HttpStatusException("Rate limited", 429, -1)));
+        assertTrue(this.policy.isRetryableUpload(new HttpStatusException("Unavailable", 503, -1)));
+        assertTrue(this.policy.isRetryableUpload(new ConnectException()));
+        assertTrue(this.policy.isRetryableUpload(new ConnectTimeoutException()));
+        assertFalse(this.policy.isRetryableUpload(new HttpStatusException("Server error", 500, -1)));
+        assertFalse(this.policy.isRetryableUpload(new HttpStatusException("Bad gateway", 502, -1)));
+        assertFalse(this.policy.isRetryableUpload(new SocketTimeoutException()));
+        assertFalse(this.policy.isRetryableUpload(new SocketException()));
+    }
+
+    @Test
+    void doesNotRepeatUploadAfterTimeout() {
+
+        final AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(SocketTimeoutException.class, () -> this.policy.executeUpload(LOG, "Upload", () -> {
+
+            attempts.incrementAndGet();
+            throw new SocketTimeoutException("Read timed out");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void retriesAsyncUploadThatCouldNotConnect() {
+
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final CompletableFuture<Long> upload = this.policy.executeUploadAsync(LOG, "Upload", this.scheduler, () -> {
+
+            final CompletableFuture<Long> attempt = new CompletableFuture<>();
+
+            if (attempts.incrementAndGet() < 2) {
+
+                attempt.completeExceptionally(new ConnectException("Connection refused"));
+            }
+
+            else {
+
+                attempt.complete(42L);
+            }
+
+            return attempt;
+        });
+
+        assertEquals(42L, upload.join());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void doesNotRepeatAsyncUploadAfterServerError() {
+
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final CompletableFuture<Long> upload = this.policy.executeUploadAsync(LOG, "Upload", this.scheduler, () -> {
+
+            attempts.incrementAndGet();
+            final CompletableFuture<Long> attempt = new CompletableFuture<>();
+            attempt.completeExceptionally(new HttpStatusException("Server error", 500, -1));
+            return attempt;
+        });
+
+        final CompletionException thrown = assertThrows(CompletionException.class, upload::join);
+        assertTrue(thrown.getCause() instanceof HttpStatusException);
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,118 @@
+package net.darkhax.curseforgegradle;
+
+import net.darkhax.curseforgegradle.api.metadata.Metadata;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests that the {@link UploadLedger} identifies uploads by their contents rather than by the order of their values,
+ * and that recorded uploads can be found again.
+ */
+class UploadLedgerTest {
+
+    private static final Logger LOG = Logging.getLogger(UploadLedgerTest.class);
+
+    @TempDir
+    File gradleUserHome;
+
+    @Test
+    void metadataHashIgnoresSetOrder() {
+
+        final Metadata first = metadata("Fixed a crash.", 9990L, 7498L, 68722L);
+        final Metadata second = metadata("Fixed a crash.", 68722L, 9990L, 7498L);
+
+        assertEquals(UploadLedger.hashMetadata(first), UploadLedger.hashMetadata(second));
+    }
+
+    @Test
+    void metadataHashChangesWithValues() {
+
+        final Metadata original = metadata("Fixed a crash.", 9990L, 7498L);
+
+        assertNotEquals(UploadLedger.hashMetadata(original), UploadLedger.hashMetadata(metadata("Fixed two crashes.", 9990L, 7498L)));
+        assertNotEquals(UploadLedger.hashMetadata(original), UploadLedger.hashMetadata(metadata("Fixed a crash.", 9990L)));
+
+        final Metadata child = metadata("Fixed a crash.", 9990L, 7498L);
+        child.parentFileID = 1234L;
+        assertNotEquals(UploadLedger.hashMetadata(original), UploadLedger.hashMetadata(child));
+    }
+
+    @Test
+    void keyDependsOnEveryPart() {
+
+        final UploadLedger ledger = new UploadLedger(this.gradleUserHome, LOG);
+        final Metadata metadata = metadata("Fixed a crash.", 9990L);
+        final String key = ledger.createKey("https://minecraft.curseforge.com", 1234L, "abc", metadata);
+
+        assertEquals(key, ledger.createKey("https://minecraft.curseforge.com", 1234L, "abc", metadata("Fixed a crash.", 9990L)));
+        assertNotEquals(key, ledger.createKey("https://wow.curseforge.com", 1234L, "abc", metadata));
+        assertNotEquals(key, ledger.createKey("https://minecraft.curseforge.com", 5678L, "abc", metadata));
+        assertNotEquals(key, ledger.createKey("https://minecraft.curseforge.com", 1234L, "def", metadata));
+    }
+
+    @Test
+    void findsRecordedUploads() {
+
+        final UploadLedger ledger = new UploadLedger(this.gradleUserHome, LOG);
+        final String key = ledger.createKey("https://minecraft.curseforge.com", 1234L, "abc", metadata("Fixed a crash.", 9990L));
+
+        assertNull(ledger.find(key));
+
+        ledger.record(key, 4567L, "mod.jar");
+
+        assertEquals(4567L, ledger.find(key));
+        assertEquals(4567L, new UploadLedger(this.gradleUserHome, LOG).find(key));
+    }
+
+    @Test
+    void ignoresUnreadableEntries() throws IOException {
+
+        final UploadLedger ledger = new UploadLedger(this.gradleUserHome, LOG);
+        final String key = ledger.createKey("https://minecraft.curseforge.com", 1234L, "abc", metadata("Fixed a crash.", 9990L));
+        ledger.record(key, 4567L, "mod.jar");
+
+        final List<Path> entries;
+
+        try (Stream<Path> files = Files.walk(this.gradleUserHome.toPath())) {
+
+            entries = files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        assertEquals(1, entries.size());
+        Files.write(entries.get(0), "{not json".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(ledger.find(key));
+    }
+
+    /**
+     * Creates upload metadata with game versions in a fixed iteration order.
+     *
+     * @param changelog    The changelog of the upload.
+     * @param gameVersions The game version IDs, in the order they are iterated.
+     * @return The metadata.
+     */
+    private static Metadata metadata(String changelog, Long... gameVersions) {
+
+        final Metadata metadata = new Metadata();
+        metadata.changelog = changelog;
+        metadata.gameVersions = new LinkedHashSet<>(Arrays.asList(gameVersions));
+        return metadata;
+    }
+}
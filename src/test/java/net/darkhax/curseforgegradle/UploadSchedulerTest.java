@@ -0,0 +1,144 @@
+package net.darkhax.curseforgegradle;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the {@link UploadScheduler} keeps uploading after a failure, never uploads a child whose parent failed,
+ * and reports every failure together once all uploads have finished.
+ */
+class UploadSchedulerTest {
+
+    private static final Logger LOG = Logging.getLogger(UploadSchedulerTest.class);
+
+    @TempDir
+    File projectDir;
+
+    private UploadArtifact failingParent;
+
+    private UploadArtifact failingChild;
+
+    private UploadArtifact parent;
+
+    private UploadArtifact child;
+
+    @BeforeEach
+    void setUp() {
+
+        final Project project = ProjectBuilder.builder().withProjectDir(this.projectDir).build();
+        final TaskPublishCurseForge task = project.getTasks().register("publishCurseForge", TaskPublishCurseForge.class).get();
+
+        this.failingParent = task.upload(1234, project.file("broken.jar"));
+        this.failingChild = this.failingParent.withAdditionalFile(project.file("broken-sources.jar"));
+        this.parent = task.upload(5678, project.file("mod.jar"));
+        this.child = this.parent.withAdditionalFile(project.file("mod-sources.jar"));
+    }
+
+    @Test
+    void reportsEveryFailureAfterAllUploadsFinish() {
+
+        final Set<UploadArtifact> uploaded = ConcurrentHashMap.newKeySet();
+        final UploadScheduler scheduler = new UploadScheduler(LOG, 2);
+
+        final GradleException error = assertThrows(GradleException.class, () -> scheduler.uploadAll(Arrays.asList(this.failingParent, this.parent), artifact -> {
+
+            if (artifact == this.failingParent || artifact == this.child) {
+
+                throw new IllegalStateException("Rejected " + artifact);
+            }
+
+            uploaded.add(artifact);
+        }));
+
+        assertEquals(Collections.singleton(this.parent), uploaded);
+        assertTrue(error.getMessage().startsWith("Failed to upload 3 of 4 artifacts."));
+        assertTrue(error.getMessage().contains(this.failingParent + ": Rejected " + this.failingParent));
+        assertTrue(error.getMessage().contains(this.failingChild + ": skipped, parent failed"));
+        assertTrue(error.getMessage().contains(this.child + ": Rejected " + this.child));
+    }
+
+    @Test
+    void reportsEveryAsyncFailureAfterAllUploadsFinish() {
+
+        final Set<UploadArtifact> started = ConcurrentHashMap.newKeySet();
+        final UploadScheduler scheduler = new UploadScheduler(LOG, 2);
+
+        final GradleException error = assertThrows(GradleException.class, () -> scheduler.uploadAllAsync(Arrays.asList(this.failingParent, this.parent), artifact -> {
+
+            started.add(artifact);
+
+            if (artifact == this.failingParent) {
+
+                throw new IllegalStateException("Could not start " + artifact);
+            }
+
+            final CompletableFuture<Void> upload = new CompletableFuture<>();
+
+            if (artifact == this.child) {
+
+                upload.completeExceptionally(new IllegalStateException("Rejected " + artifact));
+            }
+
+            else {
+
+                upload.complete(null);
+            }
+
+            return upload;
+        }));
+
+        assertFalse(started.contains(this.failingChild));
+        assertTrue(started.contains(this.child));
+        assertTrue(error.getMessage().startsWith("Failed to upload 3 of 4 artifacts."));
+        assertTrue(error.getMessage().contains(this.failingParent + ": Could not start " + this.failingParent));
+        assertTrue(error.getMessage().contains(this.failingChild + ": skipped, parent failed"));
+        assertTrue(error.getMessage().contains(this.child + ": Rejected " + this.child));
+    }
+
+    @Test
+    void succeedsWhenEveryUploadSucceeds() {
+
+        final Set<UploadArtifact> uploaded = ConcurrentHashMap.newKeySet();
+
+        new UploadScheduler(LOG, 1).uploadAll(Arrays.asList(this.failingParent, this.parent), uploaded::add);
+
+        assertEquals(4, uploaded.size());
+    }
+
+    @Test
+    void reportsEveryPreparationProblem() {
+
+        final ValidationProblems problems = new ValidationProblems();
+        final UploadScheduler scheduler = new UploadScheduler(LOG, 2);
+
+        final GradleException error = assertThrows(GradleException.class, () -> scheduler.prepareAll(Arrays.asList(this.failingParent, this.parent), problems, artifact -> {
+
+            if (artifact == this.failingParent || artifact == this.child) {
+
+                throw new IllegalStateException("Invalid " + artifact);
+            }
+        }));
+
+        assertTrue(error.getMessage().startsWith("Found 2 problem(s) in 2 of 4 artifacts."));
+        assertTrue(error.getMessage().contains("Invalid " + this.failingParent));
+        assertTrue(error.getMessage().contains("Invalid " + this.child));
+    }
+}
@@ -0,0 +1,81 @@
+package net.darkhax.curseforgegradle.api.versions;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the {@link VersionCatalogReader} keeps only the versions of the requested types, tolerates the fields it
+ * does not use, and reports error responses from the API.
+ */
+class VersionCatalogReaderTest {
+
+    @Test
+    void readsVersionTypes() throws IOException {
+
+        final VersionType[] types = VersionCatalogReader.readVersionTypes(new StringReader("[{\"id\":2,\"name\":\"Java\",\"slug\":\"java\"},{\"id\":75125,\"name\":\"Minecraft 1.20\",\"slug\":\"minecraft-1-20\"}]"));
+
+        assertEquals(2, types.length);
+        assertEquals(2L, types[0].getId());
+        assertEquals("java", types[0].getSlug());
+        assertEquals(75125L, types[1].getId());
+        assertEquals("minecraft-1-20", types[1].getSlug());
+    }
+
+    @Test
+    void keepsOnlyValidVersionTypes() throws IOException {
+
+        final String response = "[{\"id\":9990,\"gameVersionTypeID\":75125,\"name\":\"1.20.1\",\"slug\":\"1-20-1\"},"
+                + "{\"id\":8326,\"gameVersionTypeID\":2,\"name\":\"Java 17\",\"slug\":\"java-17\"},"
+                + "{\"id\":1,\"gameVersionTypeID\":615,\"name\":\"Addon\",\"slug\":\"addon\"}]";
+        final List<Version> versions = new ArrayList<>();
+
+        VersionCatalogReader.readVersions(new StringReader(response), ImmutableSet.of(75125L, 2L), versions::add);
+
+        assertEquals(2, versions.size());
+        assertEquals(9990L, versions.get(0).getId());
+        assertEquals(75125L, versions.get(0).getGameVersionTypeID());
+        assertEquals("1.20.1", versions.get(0).getName());
+        assertEquals(8326L, versions.get(1).getId());
+        assertEquals("java-17", versions.get(1).getSlug());
+    }
+
+    @Test
+    void skipsUnknownAndNullFields() throws IOException {
+
+        final String response = "[{\"id\":9990,\"gameVersionTypeID\":75125,\"name\":null,\"slug\":\"1-20-1\",\"apiVersion\":null,\"releaseDate\":{\"nested\":[1,2]}}]";
+        final List<Version> versions = new ArrayList<>();
+
+        VersionCatalogReader.readVersions(new StringReader(response), ImmutableSet.of(75125L), versions::add);
+
+        assertEquals(1, versions.size());
+        assertEquals(9990L, versions.get(0).getId());
+        assertEquals("1-20-1", versions.get(0).getSlug());
+        assertNull(versions.get(0).getName());
+    }
+
+    @Test
+    void reportsErrorResponses() {
+
+        final JsonParseException error = assertThrows(JsonParseException.class, () -> VersionCatalogReader.readVersions(new StringReader("{\"errorCode\":401,\"errorMessage\":\"Invalid token\"}"), ImmutableSet.of(75125L), version -> {}));
+
+        assertTrue(error.getMessage().contains("401"));
+        assertTrue(error.getMessage().contains("Invalid token"));
+    }
+
+    @Test
+    void rejectsResponsesThatAreNotLists() {
+
+        assertThrows(JsonParseException.class, () -> VersionCatalogReader.readVersionTypes(new StringReader("\"maintenance\"")));
+    }
+}